@@ -0,0 +1,106 @@
+package com.buyapp.productservice.service;
+
+import com.buyapp.common.client.UserDirectoryClient;
+import com.buyapp.common.dto.ProductDto;
+import com.buyapp.common.dto.UserDto;
+import com.buyapp.productservice.model.Product;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Catalog data and a ProductService wired with an in-process User Service
+ * stub. Lives in the service package so the benchmarks can reach the
+ * package-private mappers.
+ */
+final class ProductFixtures {
+
+    private static final int SELLERS = 100;
+    // Descriptions are validated to at most 150 characters, the benchmarks use the maximum
+    private static final String DESCRIPTION = "Solid oak chair with a hand-rubbed oil finish, "
+            + "mortise and tenon joints and a woven seat. Ships assembled, one year warranty incl.";
+
+    private ProductFixtures() {
+    }
+
+    /**
+     * Products spread over a fixed set of sellers. Without snapshots every
+     * product needs an owner lookup when mapped, like documents written before
+     * seller snapshots existed.
+     */
+    static List<Product> products(int count, boolean withSellerSnapshot) {
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String sellerId = "seller-" + (i % SELLERS);
+            Product product = new Product(String.format("%024x", i), "Product " + i, DESCRIPTION,
+                    Math.round(random.nextDouble() * 100_000) / 100.0, random.nextInt(101), sellerId);
+            if (withSellerSnapshot) {
+                product.setSellerEmail(sellerId + "@example.com");
+                product.setSellerName("Seller " + (i % SELLERS));
+                product.setSellerAvatar(String.format("%024x", i % SELLERS));
+            }
+            product.setPrimaryImageId(String.format("%024x", count + i));
+            product.setVersion(1L);
+            product.setLastModified(Instant.EPOCH);
+            products.add(product);
+        }
+        return products;
+    }
+
+    static List<ProductDto> dtos(int count) {
+        return productService().toDtos(products(count, true));
+    }
+
+    static ProductService productService() {
+        ProductService service = new ProductService();
+        inject(service, "userDirectoryClient", new StubUserDirectoryClient());
+        return service;
+    }
+
+    private static void inject(Object target, String fieldName, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + fieldName, e);
+        }
+    }
+
+    /**
+     * Answers user lookups from memory, so remote latency stays out of the
+     * numbers while the mapping still does the same work per product.
+     */
+    static final class StubUserDirectoryClient extends UserDirectoryClient {
+
+        StubUserDirectoryClient() {
+            super(WebClient.builder(), 1, Duration.ofMinutes(1), Duration.ofSeconds(1));
+        }
+
+        @Override
+        public UserDto getUserById(String id) {
+            UserDto user = new UserDto();
+            user.setId(id);
+            user.setEmail(id + "@example.com");
+            return user;
+        }
+
+        @Override
+        public Map<String, String> getUserEmailsByIds(Collection<String> ids) {
+            Map<String, String> emails = new HashMap<>();
+            for (String id : ids) {
+                emails.put(id, id + "@example.com");
+            }
+            return emails;
+        }
+    }
+}
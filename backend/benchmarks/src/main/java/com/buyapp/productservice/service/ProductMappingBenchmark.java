@@ -0,0 +1,72 @@
+package com.buyapp.productservice.service;
+
+import com.buyapp.common.dto.ProductDto;
+import com.buyapp.common.dto.ProductSummaryDto;
+import com.buyapp.productservice.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping of whole listings, as done for every catalog read,
+ * and DTO to entity mapping, as done for every write.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductMappingBenchmark {
+
+    @Param({ "100", "10000", "100000" })
+    private int size;
+
+    private ProductService productService;
+    private List<Product> products;
+    private List<Product> legacyProducts;
+    private List<ProductDto> dtos;
+
+    @Setup
+    public void setUp() {
+        productService = ProductFixtures.productService();
+        products = ProductFixtures.products(size, true);
+        legacyProducts = ProductFixtures.products(size, false);
+        dtos = ProductFixtures.dtos(size);
+    }
+
+    @Benchmark
+    public List<ProductDto> toDtos() {
+        return productService.toDtos(products);
+    }
+
+    // Products without a seller snapshot, resolved through the stubbed batch lookup
+    @Benchmark
+    public List<ProductDto> toDtosWithOwnerLookup() {
+        return productService.toDtos(legacyProducts);
+    }
+
+    @Benchmark
+    public List<ProductSummaryDto> toSummaries() {
+        return productService.toSummaries(products);
+    }
+
+    @Benchmark
+    public void toEntity(Blackhole blackhole) {
+        for (ProductDto dto : dtos) {
+            blackhole.consume(productService.toEntity(dto));
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.buyapp.mediaservice.config;
 
 import com.buyapp.common.event.MediaEvent;
 import com.buyapp.common.event.ProductEvent;
+import com.buyapp.common.event.UserEvent;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
@@ -9,6 +10,7 @@ import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
@@ -25,6 +27,9 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
 
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
     @Value("${spring.kafka.consumer.group-id:media-service-group}")
     private String groupId;
 
@@ -44,6 +49,24 @@ public class KafkaConfig {
         return new KafkaTemplate<>(mediaEventProducerFactory());
     }
 
+    // Consumer Configuration for MediaEvent
+    @Bean
+    public ConsumerFactory<String, MediaEvent> mediaEventConsumerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        configProps.put(JsonDeserializer.VALUE_DEFAULT_TYPE, MediaEvent.class.getName());
+        return new DefaultKafkaConsumerFactory<>(configProps);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, MediaEvent> mediaEventKafkaListenerContainerFactory() {
+        return listenerContainerFactory(mediaEventConsumerFactory());
+    }
+
     // Consumer Configuration for ProductEvent
     @Bean
     public ConsumerFactory<String, ProductEvent> productEventConsumerFactory() {
@@ -59,8 +82,34 @@ public class KafkaConfig {
 
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, ProductEvent> productEventKafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, ProductEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(productEventConsumerFactory());
+        return listenerContainerFactory(productEventConsumerFactory());
+    }
+
+    // Consumer Configuration for UserEvent
+    @Bean
+    public ConsumerFactory<String, UserEvent> userEventConsumerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        configProps.put(JsonDeserializer.VALUE_DEFAULT_TYPE, UserEvent.class.getName());
+        return new DefaultKafkaConsumerFactory<>(configProps);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, UserEvent> userEventKafkaListenerContainerFactory() {
+        return listenerContainerFactory(userEventConsumerFactory());
+    }
+
+    // Listener containers run on virtual threads when spring.threads.virtual.enabled is set
+    private <V> ConcurrentKafkaListenerContainerFactory<String, V> listenerContainerFactory(
+            ConsumerFactory<String, V> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<String, V> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        if (virtualThreads) {
+            factory.getContainerProperties().setListenerTaskExecutor(new VirtualThreadTaskExecutor("kafka-listener-"));
+        }
         return factory;
     }
 }
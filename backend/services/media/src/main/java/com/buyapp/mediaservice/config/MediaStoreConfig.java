@@ -0,0 +1,94 @@
+package com.buyapp.mediaservice.config;
+
+import com.buyapp.mediaservice.service.LocalMediaStore;
+import com.buyapp.mediaservice.service.MediaStore;
+import com.buyapp.mediaservice.service.S3MediaStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+
+/**
+ * Picks where stored files live from {@code media.storage.type}: {@code local}
+ * (the default) for this instance's disk, {@code s3} for a bucket shared by
+ * every instance.
+ */
+@Configuration
+public class MediaStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "media.storage.type", havingValue = "local", matchIfMissing = true)
+    public MediaStore localMediaStore() {
+        return new LocalMediaStore();
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "media.storage.type", havingValue = "s3")
+    static class S3StoreConfig {
+
+        // Blank for AWS itself; set for MinIO and other S3-compatible stores
+        @Value("${media.storage.s3.endpoint:}")
+        private String endpoint;
+
+        @Value("${media.storage.s3.region:us-east-1}")
+        private String region;
+
+        // MinIO serves buckets by path rather than by host name
+        @Value("${media.storage.s3.path-style:true}")
+        private boolean pathStyle;
+
+        // Blank to use the default AWS credential chain (environment, profile, instance role)
+        @Value("${media.storage.s3.access-key:}")
+        private String accessKey;
+
+        @Value("${media.storage.s3.secret-key:}")
+        private String secretKey;
+
+        @Bean
+        public S3Client s3Client() {
+            var builder = S3Client.builder()
+                    .region(Region.of(region))
+                    .credentialsProvider(credentials())
+                    .forcePathStyle(pathStyle);
+            if (!endpoint.isBlank()) {
+                builder.endpointOverride(URI.create(endpoint));
+            }
+            return builder.build();
+        }
+
+        @Bean
+        public S3Presigner s3Presigner() {
+            var builder = S3Presigner.builder()
+                    .region(Region.of(region))
+                    .credentialsProvider(credentials())
+                    .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(pathStyle).build());
+            if (!endpoint.isBlank()) {
+                builder.endpointOverride(URI.create(endpoint));
+            }
+            return builder.build();
+        }
+
+        @Bean
+        public MediaStore s3MediaStore(S3Client s3Client, S3Presigner s3Presigner,
+                @Value("${media.storage.s3.bucket}") String bucket) {
+            return new S3MediaStore(s3Client, s3Presigner, bucket);
+        }
+
+        private AwsCredentialsProvider credentials() {
+            if (accessKey.isBlank()) {
+                return DefaultCredentialsProvider.builder().build();
+            }
+            return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.buyapp.mediaservice.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -29,8 +30,9 @@ public class SecurityConfig {
                 .cors(AbstractHttpConfigurer::disable) // CORS handled by Gateway
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll() // Results of already authorized async requests
                         .requestMatchers("/media/file/**", "/actuator/**").permitAll() // Public file serving
-                        .requestMatchers("/media/product/**").permitAll() // Public product media listing
+                        .requestMatchers("/media/product/**", "/media/products/**").permitAll() // Public product media listing
                         .requestMatchers("/media/avatar/file/**", "/media/avatar/user/**").permitAll() // Public avatar viewing
                         .requestMatchers("/media/internal/**").permitAll() // Internal service calls
                         .anyRequest().authenticated())
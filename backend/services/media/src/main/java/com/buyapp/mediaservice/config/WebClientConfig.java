@@ -1,10 +1,14 @@
 package com.buyapp.mediaservice.config;
 
+import com.buyapp.common.client.UserDirectoryClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.time.Duration;
+
 @Configuration
 public class WebClientConfig {
 
@@ -13,4 +17,12 @@ public class WebClientConfig {
     public WebClient.Builder webClientBuilder() {
         return WebClient.builder();
     }
-}
\ No newline at end of file
+
+    @Bean
+    public UserDirectoryClient userDirectoryClient(WebClient.Builder webClientBuilder,
+            @Value("${user-directory.cache.maximum-size:10000}") long maximumSize,
+            @Value("${user-directory.cache.ttl:5m}") Duration ttl,
+            @Value("${user-directory.request-timeout:2s}") Duration requestTimeout) {
+        return new UserDirectoryClient(webClientBuilder, maximumSize, ttl, requestTimeout);
+    }
+}
@@ -2,11 +2,9 @@ package com.buyapp.mediaservice.controller;
 
 import com.buyapp.mediaservice.model.Avatar;
 import com.buyapp.mediaservice.service.AvatarService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -14,9 +12,6 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.Map;
 import java.util.Optional;
 
@@ -27,6 +22,9 @@ public class AvatarController {
     @Autowired
     private AvatarService avatarService;
 
+    @Autowired
+    private FileSender fileSender;
+
     /**
      * Upload avatar for authenticated seller
      */
@@ -54,28 +52,12 @@ public class AvatarController {
      * Get avatar image file by avatar ID (public endpoint)
      */
     @GetMapping("/file/{id}")
-    public ResponseEntity<Resource> getAvatarFile(@PathVariable String id) {
-        try {
-            Avatar avatar = avatarService.getAvatarById(id);
-            Path filePath = Paths.get(avatar.getImagePath());
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (resource.exists() && resource.isReadable()) {
-                String contentType = Files.probeContentType(filePath);
-                if (contentType == null) {
-                    contentType = "application/octet-stream";
-                }
-
-                return ResponseEntity.ok()
-                        .contentType(MediaType.parseMediaType(contentType))
-                        .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + avatar.getFileName() + "\"")
-                        .body(resource);
-            } else {
-                throw new RuntimeException("File not found: " + avatar.getFileName());
-            }
-        } catch (IOException e) {
-            throw new RuntimeException("File not found");
-        }
+    public void getAvatarFile(@PathVariable String id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Avatar avatar = avatarService.getAvatarById(id);
+        String etag = avatar.getContentHash() != null ? "\"" + avatar.getContentHash() + "\"" : null;
+        fileSender.sendStored(request, response, avatar.getImagePath(), avatar.getContentType(), avatar.getFileName(),
+                etag);
     }
 
     /**
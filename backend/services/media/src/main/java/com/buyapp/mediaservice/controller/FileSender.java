@@ -0,0 +1,249 @@
+package com.buyapp.mediaservice.controller;
+
+import com.buyapp.common.exception.ResourceNotFoundException;
+import com.buyapp.mediaservice.service.MediaStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+/**
+ * Writes a file to the response with conditional request support
+ * ({@code If-None-Match}, {@code If-Modified-Since}) and single byte ranges
+ * ({@code Range}, {@code If-Range}, 206 and 416).
+ *
+ * Files served with an ETag are content-hashed and never change under their
+ * URL, so they are marked cacheable for a year and immutable.
+ *
+ * On Tomcat the body is handed to the connector's sendfile support, so the
+ * kernel copies the file straight to the socket. Elsewhere it is copied with
+ * {@link FileChannel#transferTo}, without buffering the file on the heap.
+ *
+ * Files in a remote {@link MediaStore} are either redirected to a short-lived
+ * presigned URL, so their bytes never pass through this service, or streamed
+ * whole from the store.
+ */
+@Component
+public class FileSender {
+
+    // Tomcat's sendfile request attributes, see org.apache.catalina.Globals
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Below this, a plain copy through the response buffer is as cheap (Tomcat's DefaultServlet default)
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+    private static final long[] UNSATISFIABLE = new long[0];
+
+    @Value("${media.serving.sendfile:true}")
+    private boolean sendfileEnabled = true;
+
+    @Value("${media.storage.presigned-urls:false}")
+    private boolean presignedUrls;
+
+    @Value("${media.storage.presign-ttl:5m}")
+    private Duration presignTtl = Duration.ofMinutes(5);
+
+    @Autowired
+    private MediaStore mediaStore;
+
+    /**
+     * Sends a file from the media store by its key. See
+     * {@link #send(HttpServletRequest, HttpServletResponse, Path, String, String, String)}.
+     */
+    public void sendStored(HttpServletRequest request, HttpServletResponse response, String key, String contentType,
+            String fileName, String etag) throws IOException {
+        Path file = mediaStore.localFile(key);
+        if (file != null) {
+            send(request, response, file, contentType, fileName, etag);
+            return;
+        }
+        URI url = presignedUrls
+                ? mediaStore.presignedUrl(key, presignTtl, contentTypeOrDefault(contentType), fileName,
+                        etag != null ? IMMUTABLE : null)
+                : null;
+        if (url != null) {
+            // The redirect may be reused while the URL is still comfortably valid
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=" + presignTtl.toSeconds() / 2);
+            response.setStatus(HttpServletResponse.SC_FOUND);
+            response.setHeader(HttpHeaders.LOCATION, url.toString());
+            return;
+        }
+        stream(request, response, key, contentType, fileName, etag);
+    }
+
+    /**
+     * @param etag quoted strong ETag of the file's content, or null when its
+     *             hash is unknown
+     */
+    public void send(HttpServletRequest request, HttpServletResponse response, Path file, String contentType,
+            String fileName, String etag) throws IOException {
+        if (!Files.isRegularFile(file) || !Files.isReadable(file)) {
+            throw new ResourceNotFoundException("File not found: " + fileName);
+        }
+        long length = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+
+        response.setContentType(contentTypeOrDefault(contentType));
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileName + "\"");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (etag != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE);
+        }
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && ifRangeMatches(request, etag, lastModified)) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == UNSATISFIABLE) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            if (bounds != null) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        if (sendfileEnabled && count >= SENDFILE_MIN_SIZE
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toRealPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            // Commit through any response wrappers so their headers are written;
+            // the connector sends the file once the handler returns
+            response.flushBuffer();
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    // Copied whole from a remote store; ranges are not offered on this path
+    private void stream(HttpServletRequest request, HttpServletResponse response, String key, String contentType,
+            String fileName, String etag) throws IOException {
+        MediaStore.Content content;
+        try {
+            content = mediaStore.open(key);
+        } catch (NoSuchFileException e) {
+            throw new ResourceNotFoundException("File not found: " + fileName);
+        }
+        try (content) {
+            response.setContentType(contentTypeOrDefault(contentType));
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileName + "\"");
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "none");
+            if (etag != null) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE);
+            }
+            if (new ServletWebRequest(request, response).checkNotModified(etag, content.lastModified())) {
+                return;
+            }
+            response.setContentLengthLong(content.length());
+            if (!"HEAD".equals(request.getMethod())) {
+                content.stream().transferTo(response.getOutputStream());
+            }
+        }
+    }
+
+    /**
+     * Bounds of a single {@code bytes} range, {@link #UNSATISFIABLE} when it
+     * starts past the end, or null when the header should be ignored (other
+     * units, multiple ranges, bad syntax).
+     */
+    static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // Suffix range: the last n bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return suffix == 0 ? UNSATISFIABLE : null;
+                }
+                return length == 0 ? UNSATISFIABLE : new long[] { Math.max(0, length - suffix), length - 1 };
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (start < 0 || end < start) {
+                return null;
+            }
+            if (start >= length) {
+                return UNSATISFIABLE;
+            }
+            return new long[] { start, Math.min(end, length - 1) };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String contentTypeOrDefault(String contentType) {
+        return contentType != null ? contentType : DEFAULT_CONTENT_TYPE;
+    }
+
+    // A range only applies to the representation the client already has part of
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) == lastModified / 1000 * 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
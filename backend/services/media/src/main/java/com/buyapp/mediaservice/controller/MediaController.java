@@ -1,22 +1,21 @@
 package com.buyapp.mediaservice.controller;
 
 import com.buyapp.mediaservice.model.Media;
+import com.buyapp.mediaservice.service.ImageVariant;
+import com.buyapp.mediaservice.service.ImageVariantService;
 import com.buyapp.mediaservice.service.MediaService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 
@@ -27,15 +26,40 @@ public class MediaController {
     @Autowired
     private MediaService mediaService;
 
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private FileSender fileSender;
+
     @PostMapping("/upload/{productId}")
     @PreAuthorize("hasRole('SELLER') or hasRole('ADMIN')")
-    public ResponseEntity<Media> uploadMedia(
+    public Mono<ResponseEntity<Media>> uploadMedia(
             @PathVariable String productId,
             @RequestParam("file") MultipartFile file,
             Authentication authentication) {
 
-        Media savedMedia = mediaService.uploadMedia(file, productId, authentication);
-        return ResponseEntity.ok(savedMedia);
+        return mediaService.uploadMedia(file, productId, authentication)
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Upload with the image as the raw request body, which is streamed to disk
+     * instead of being buffered like a multipart part.
+     */
+    @PostMapping(value = "/upload/{productId}", consumes = {
+            MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_GIF_VALUE, "image/webp",
+            MediaType.APPLICATION_OCTET_STREAM_VALUE })
+    @PreAuthorize("hasRole('SELLER') or hasRole('ADMIN')")
+    public Mono<ResponseEntity<Media>> uploadMediaStream(
+            @PathVariable String productId,
+            @RequestParam(required = false) String filename,
+            HttpServletRequest request,
+            Authentication authentication) throws IOException {
+
+        return mediaService.uploadMediaStream(request.getInputStream(), request.getContentLengthLong(), filename,
+                productId, authentication)
+                .map(ResponseEntity::ok);
     }
 
     @GetMapping("/product/{productId}")
@@ -44,29 +68,45 @@ public class MediaController {
         return ResponseEntity.ok(mediaList);
     }
 
+    /**
+     * Media of several products at once, for product grids:
+     * {@code ?ids=a,b,c} returns a list per product id.
+     */
+    @GetMapping("/products")
+    public ResponseEntity<Map<String, List<Media>>> getMediaByProducts(@RequestParam List<String> ids) {
+        return ResponseEntity.ok(mediaService.getMediaByProductIds(ids));
+    }
+
+    /**
+     * The primary image of each product that has one, by product id.
+     */
+    @GetMapping("/products/primary")
+    public ResponseEntity<Map<String, Media>> getPrimaryMediaByProducts(@RequestParam List<String> ids) {
+        return ResponseEntity.ok(mediaService.getPrimaryMediaByProductIds(ids));
+    }
+
+    /**
+     * Serves the original, or a resized variant when {@code w} (a width in
+     * pixels) or {@code size} (thumb, small, medium, large) is given.
+     */
     @GetMapping("/file/{id}")
-    public ResponseEntity<Resource> getMediaFile(@PathVariable String id) {
-        try {
-            Media media = mediaService.getMediaById(id);
-            Path filePath = Paths.get(media.getImagePath());
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (resource.exists() && resource.isReadable()) {
-                String contentType = Files.probeContentType(filePath);
-                if (contentType == null) {
-                    contentType = "application/octet-stream";
-                }
-
-                return ResponseEntity.ok()
-                        .contentType(MediaType.parseMediaType(contentType))
-                        .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + media.getFileName() + "\"")
-                        .body(resource);
-            } else {
-                throw new RuntimeException("File not found: " + media.getFileName());
-            }
-        } catch (IOException e) {
-            throw new RuntimeException("File not found");
-        }
+    public void getMediaFile(
+            @PathVariable String id,
+            @RequestParam(name = "w", required = false) Integer width,
+            @RequestParam(required = false) String size,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        ImageVariant variant = ImageVariant.select(width, size);
+        Media media = mediaService.getMediaById(id);
+        String original = media.getImagePath();
+        String key = variant != null ? imageVariantService.resolve(media, variant) : original;
+        boolean isOriginal = key.equals(original);
+        String contentType = isOriginal ? media.getContentType() : ImageVariantService.contentType(key);
+        // Variants are derived from the original, so its hash versions them too
+        String etag = media.getContentHash() == null ? null
+                : "\"" + media.getContentHash() + (isOriginal ? "" : "-w" + variant.getWidth()) + "\"";
+
+        fileSender.sendStored(request, response, key, contentType, media.getFileName(), etag);
     }
 
     @DeleteMapping("/{id}")
@@ -0,0 +1,29 @@
+package com.buyapp.mediaservice.controller;
+
+import com.buyapp.mediaservice.service.StorageMigrationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/media/admin/storage/migration")
+@PreAuthorize("hasRole('ADMIN')")
+public class StorageMigrationController {
+
+    @Autowired
+    private StorageMigrationService storageMigrationService;
+
+    /**
+     * Start moving flat upload directories into the sharded layout
+     */
+    @PostMapping
+    public ResponseEntity<StorageMigrationService.Status> start() {
+        return ResponseEntity.accepted().body(storageMigrationService.start());
+    }
+
+    @GetMapping
+    public ResponseEntity<StorageMigrationService.Status> status() {
+        return ResponseEntity.ok(storageMigrationService.getStatus());
+    }
+}
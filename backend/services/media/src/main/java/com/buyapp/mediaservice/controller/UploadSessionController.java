@@ -0,0 +1,71 @@
+package com.buyapp.mediaservice.controller;
+
+import com.buyapp.mediaservice.model.Media;
+import com.buyapp.mediaservice.model.UploadSession;
+import com.buyapp.mediaservice.service.UploadSessionService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * Resumable uploads for connections that may drop mid-transfer. Create a
+ * session, PUT the file in chunks at the current offset, and complete it; after
+ * a failed chunk, GET the session for the offset to resume from.
+ */
+@RestController
+@RequestMapping("/media/uploads")
+@PreAuthorize("hasRole('SELLER') or hasRole('ADMIN')")
+public class UploadSessionController {
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    @PostMapping
+    public Mono<ResponseEntity<UploadSession>> createSession(
+            @RequestParam String productId,
+            @RequestParam(required = false) String fileName,
+            @RequestParam long size,
+            Authentication authentication) {
+
+        return uploadSessionService.createSession(productId, fileName, size, authentication)
+                .map(session -> ResponseEntity.created(URI.create("/media/uploads/" + session.getId()))
+                        .body(session));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<UploadSession> getSession(@PathVariable String id, Authentication authentication) {
+        return ResponseEntity.ok(uploadSessionService.getSession(id, authentication));
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<UploadSession> appendChunk(
+            @PathVariable String id,
+            @RequestParam long offset,
+            HttpServletRequest request,
+            Authentication authentication) throws IOException {
+
+        return ResponseEntity.ok(uploadSessionService.appendChunk(id, offset, request.getInputStream(),
+                authentication));
+    }
+
+    @PostMapping("/{id}/complete")
+    public Mono<ResponseEntity<Media>> complete(@PathVariable String id, Authentication authentication)
+            throws IOException {
+        return uploadSessionService.complete(id, authentication)
+                .map(ResponseEntity::ok);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Map<String, String>> cancel(@PathVariable String id, Authentication authentication) {
+        uploadSessionService.cancel(id, authentication);
+        return ResponseEntity.ok(Map.of("message", "Upload cancelled"));
+    }
+}
@@ -0,0 +1,39 @@
+package com.buyapp.mediaservice.listener;
+
+import com.buyapp.common.event.MediaEvent;
+import com.buyapp.mediaservice.service.MediaService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Generates image variants off the upload request. One replica in the group
+ * handles each upload; a replica that serves a variant before it exists
+ * generates it on demand.
+ */
+@Component
+public class MediaEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(MediaEventListener.class);
+
+    private final MediaService mediaService;
+
+    public MediaEventListener(MediaService mediaService) {
+        this.mediaService = mediaService;
+    }
+
+    @KafkaListener(topics = "${kafka.topic.media-events:media-events}",
+            groupId = "${spring.kafka.consumer.group-id:media-service-group}",
+            containerFactory = "mediaEventKafkaListenerContainerFactory")
+    public void handleMediaEvent(MediaEvent event) {
+        if (event.getEventType() != MediaEvent.EventType.IMAGE_UPLOADED) {
+            return;
+        }
+        try {
+            mediaService.generateVariants(event.getMediaId());
+        } catch (Exception e) {
+            log.error("Error generating variants for media {}: {}", event.getMediaId(), e.getMessage(), e);
+        }
+    }
+}
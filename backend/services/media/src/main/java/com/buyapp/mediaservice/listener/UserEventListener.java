@@ -0,0 +1,32 @@
+package com.buyapp.mediaservice.listener;
+
+import com.buyapp.common.client.UserDirectoryClient;
+import com.buyapp.common.event.UserEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalidates the user near-cache when a user changes. Each instance joins its
+ * own consumer group so that every replica sees every event.
+ */
+@Component
+public class UserEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(UserEventListener.class);
+
+    private final UserDirectoryClient userDirectoryClient;
+
+    public UserEventListener(UserDirectoryClient userDirectoryClient) {
+        this.userDirectoryClient = userDirectoryClient;
+    }
+
+    @KafkaListener(topics = "${kafka.topic.user-events:user-events}",
+    groupId = "media-service-users-${random.uuid}",
+    containerFactory = "userEventKafkaListenerContainerFactory")
+    public void handleUserEvent(UserEvent event) {
+        log.debug("Invalidating cached user after {}: {}", event.getEventType(), event.getUserId());
+        userDirectoryClient.invalidate(event.getUserId(), event.getEmail());
+    }
+}
@@ -8,6 +8,8 @@ import jakarta.validation.constraints.NotBlank;
 
 @Document(collection = "avatars")
 public class Avatar {
+    private static final int VERSION_LENGTH = 16;
+
     @Id
     private String id;
 
@@ -21,6 +23,8 @@ public class Avatar {
     private String fileName;
     private String contentType;
     private Long fileSize;
+    // SHA-256 of the file, null for files stored before hashing was added
+    private String contentHash;
 
     public Avatar() {
     }
@@ -78,5 +82,21 @@ public class Avatar {
     public void setFileSize(Long fileSize) {
         this.fileSize = fileSize;
     }
-}
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * URL of the file, versioned by content so a replaced file is never served
+     * from a stale cache entry. Derived, not stored.
+     */
+    public String getFileUrl() {
+        String url = "/media/avatar/file/" + id;
+        return contentHash != null ? url + "?v=" + contentHash.substring(0, VERSION_LENGTH) : url;
+    }
+}
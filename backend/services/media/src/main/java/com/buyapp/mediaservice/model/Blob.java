@@ -0,0 +1,70 @@
+package com.buyapp.mediaservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A stored file, keyed by the SHA-256 of its contents and shared by every
+ * media record with the same bytes.
+ */
+@Document(collection = "blobs")
+public class Blob {
+    @Id
+    private String id;
+
+    private String path;
+    private Long size;
+    // Number of media records pointing at this blob
+    private long refCount;
+    // Set while the file of an unreferenced blob is being deleted
+    private Instant deletingSince;
+
+    public Blob() {
+    }
+
+    public Blob(String id, String path, Long size, long refCount) {
+        this.id = id;
+        this.path = path;
+        this.size = size;
+        this.refCount = refCount;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public long getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(long refCount) {
+        this.refCount = refCount;
+    }
+
+    public Instant getDeletingSince() {
+        return deletingSince;
+    }
+
+    public void setDeletingSince(Instant deletingSince) {
+        this.deletingSince = deletingSince;
+    }
+}
@@ -1,14 +1,23 @@
 package com.buyapp.mediaservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
+import java.time.Instant;
+
 @Document(collection = "media")
+// Serves per-product listings and the oldest-image lookups in id order
+@CompoundIndex(name = "productId_id", def = "{ 'productId' : 1, '_id' : 1 }")
 public class Media {
+    private static final int VERSION_LENGTH = 16;
+
     @Id
     private String id;
 
@@ -22,6 +31,25 @@ public class Media {
     private String fileName;
     private String contentType;
     private Long fileSize;
+    // SHA-256 of the file, null for files stored before hashing was added
+    private String contentHash;
+
+    // Set when the media is deleted; the record is hidden from reads and its
+    // file is removed by the reaper, which then deletes the record
+    @JsonIgnore
+    private Instant deletedAt;
+    // When the reaper next tries, and how often it has failed so far
+    @JsonIgnore
+    @Indexed(sparse = true)
+    private Instant reapAfter;
+    @JsonIgnore
+    private int reapAttempts;
+    // Whether the media's reference to its file has been dropped, so a retry does not drop it twice
+    @JsonIgnore
+    private boolean referenceReleased;
+    // Whether that was the last reference, so the file itself has to go
+    @JsonIgnore
+    private boolean fileOrphaned;
 
     public Media() {
     }
@@ -79,4 +107,61 @@ public class Media {
     public void setFileSize(Long fileSize) {
         this.fileSize = fileSize;
     }
-}
\ No newline at end of file
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(Instant deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
+    public Instant getReapAfter() {
+        return reapAfter;
+    }
+
+    public void setReapAfter(Instant reapAfter) {
+        this.reapAfter = reapAfter;
+    }
+
+    public int getReapAttempts() {
+        return reapAttempts;
+    }
+
+    public void setReapAttempts(int reapAttempts) {
+        this.reapAttempts = reapAttempts;
+    }
+
+    public boolean isReferenceReleased() {
+        return referenceReleased;
+    }
+
+    public void setReferenceReleased(boolean referenceReleased) {
+        this.referenceReleased = referenceReleased;
+    }
+
+    public boolean isFileOrphaned() {
+        return fileOrphaned;
+    }
+
+    public void setFileOrphaned(boolean fileOrphaned) {
+        this.fileOrphaned = fileOrphaned;
+    }
+
+    /**
+     * URL of the file, versioned by content so a replaced file is never served
+     * from a stale cache entry. Derived, not stored.
+     */
+    public String getFileUrl() {
+        String url = "/media/file/" + id;
+        return contentHash != null ? url + "?v=" + contentHash.substring(0, VERSION_LENGTH) : url;
+    }
+}
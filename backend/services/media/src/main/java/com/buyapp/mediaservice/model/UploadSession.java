@@ -0,0 +1,101 @@
+package com.buyapp.mediaservice.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A resumable upload in progress. Each chunk received is kept as a part in the
+ * {@link com.buyapp.mediaservice.service.MediaStore}, so any instance can take
+ * the next chunk or complete the upload.
+ */
+@Document(collection = "upload_sessions")
+public class UploadSession {
+    @Id
+    private String id;
+
+    private String productId;
+    private String userEmail;
+    private String fileName;
+    // Declared total size in bytes
+    private long size;
+
+    // Store keys of the chunks received, in order
+    @JsonIgnore
+    private List<String> parts = new ArrayList<>();
+
+    @Indexed
+    private Instant expiresAt;
+
+    // Bytes received so far, the total size of the parts
+    private long offset;
+
+    public UploadSession() {
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public String getUserEmail() {
+        return userEmail;
+    }
+
+    public void setUserEmail(String userEmail) {
+        this.userEmail = userEmail;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public List<String> getParts() {
+        return parts;
+    }
+
+    public void setParts(List<String> parts) {
+        this.parts = parts;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+}
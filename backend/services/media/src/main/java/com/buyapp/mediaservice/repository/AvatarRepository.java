@@ -2,6 +2,8 @@ package com.buyapp.mediaservice.repository;
 
 import com.buyapp.mediaservice.model.Avatar;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -13,5 +15,9 @@ public interface AvatarRepository extends MongoRepository<Avatar, String> {
     void deleteByUserId(String userId);
 
     boolean existsByUserId(String userId);
+
+    @Query("{ 'imagePath' : ?0 }")
+    @Update("{ '$set' : { 'imagePath' : ?1 } }")
+    long updateImagePath(String oldPath, String newPath);
 }
 
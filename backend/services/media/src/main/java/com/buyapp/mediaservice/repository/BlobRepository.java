@@ -0,0 +1,15 @@
+package com.buyapp.mediaservice.repository;
+
+import com.buyapp.mediaservice.model.Blob;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BlobRepository extends MongoRepository<Blob, String>, BlobRepositoryCustom {
+
+    @Query("{ 'path' : ?0 }")
+    @Update("{ '$set' : { 'path' : ?1 } }")
+    long updatePath(String oldPath, String newPath);
+}
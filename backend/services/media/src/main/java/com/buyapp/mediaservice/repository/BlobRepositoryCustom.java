@@ -0,0 +1,42 @@
+package com.buyapp.mediaservice.repository;
+
+import com.buyapp.mediaservice.model.Blob;
+
+import java.time.Instant;
+
+/**
+ * Reference counting for blobs, each a single atomic update so instances
+ * sharing the database never lose or double count a reference.
+ */
+public interface BlobRepositoryCustom {
+    /**
+     * Adds a reference to the blob with this hash, creating it with the given
+     * path and size if there is none. Returns the blob after the update; a
+     * reference count of 1 means it was just created or revived, so its file
+     * may be missing. Throws a DuplicateKeyException while the file of the
+     * unreferenced blob is being deleted under a claim taken after
+     * {@code staleClaimsBefore}, or when another instance created the blob at
+     * the same moment.
+     */
+    Blob addReference(String hash, String path, long size, Instant staleClaimsBefore);
+
+    /**
+     * Drops one reference to the blob stored at this path. Returns the blob
+     * after the update, or null when it holds no reference there.
+     */
+    Blob dropReference(String hash, String path);
+
+    /**
+     * Claims the unreferenced blob stored at this path so the caller can delete
+     * its file. Claims taken before {@code staleClaimsBefore} were abandoned and
+     * are taken over. Returns the claimed blob, or null when it is referenced
+     * again or claimed by someone else.
+     */
+    Blob claimForDeletion(String hash, String path, Instant now, Instant staleClaimsBefore);
+
+    /**
+     * Deletes the record of a blob claimed at {@code claimedAt}, unless it has
+     * been referenced again. Returns whether it was deleted.
+     */
+    boolean deleteClaimed(String hash, Instant claimedAt);
+}
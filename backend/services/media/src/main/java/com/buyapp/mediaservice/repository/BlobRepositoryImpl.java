@@ -0,0 +1,58 @@
+package com.buyapp.mediaservice.repository;
+
+import com.buyapp.mediaservice.model.Blob;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+
+public class BlobRepositoryImpl implements BlobRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public BlobRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Blob addReference(String hash, String path, long size, Instant staleClaimsBefore) {
+        // A blob being deleted does not match, so the upsert fails on its _id instead of reviving it
+        Query query = new Query(Criteria.where("id").is(hash).orOperator(
+                Criteria.where("deletingSince").is(null),
+                Criteria.where("deletingSince").lt(staleClaimsBefore)));
+        Update update = new Update()
+                .setOnInsert("path", path)
+                .setOnInsert("size", size)
+                .inc("refCount", 1)
+                .unset("deletingSince");
+        return mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), Blob.class);
+    }
+
+    @Override
+    public Blob dropReference(String hash, String path) {
+        Query query = new Query(Criteria.where("id").is(hash).and("path").is(path).and("refCount").gt(0));
+        return mongoTemplate.findAndModify(query, new Update().inc("refCount", -1),
+                FindAndModifyOptions.options().returnNew(true), Blob.class);
+    }
+
+    @Override
+    public Blob claimForDeletion(String hash, String path, Instant now, Instant staleClaimsBefore) {
+        Query query = new Query(Criteria.where("id").is(hash).and("path").is(path).and("refCount").lte(0)
+                .orOperator(
+                        Criteria.where("deletingSince").is(null),
+                        Criteria.where("deletingSince").lt(staleClaimsBefore)));
+        return mongoTemplate.findAndModify(query, new Update().set("deletingSince", now),
+                FindAndModifyOptions.options().returnNew(true), Blob.class);
+    }
+
+    @Override
+    public boolean deleteClaimed(String hash, Instant claimedAt) {
+        Query query = new Query(Criteria.where("id").is(hash).and("refCount").lte(0)
+                .and("deletingSince").is(claimedAt));
+        return mongoTemplate.remove(query, Blob.class).getDeletedCount() > 0;
+    }
+}
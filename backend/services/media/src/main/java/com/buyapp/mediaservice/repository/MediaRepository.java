@@ -1,16 +1,78 @@
 package com.buyapp.mediaservice.repository;
 
 import com.buyapp.mediaservice.model.Media;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+/**
+ * Deleted media stays as a tombstone (deletedAt set) until the reaper has
+ * removed its file, so reads go through the *DeletedAtIsNull methods.
+ */
 @Repository
 public interface MediaRepository extends MongoRepository<Media, String> {
-    List<Media> findByProductId(String productId);
+    Optional<Media> findByIdAndDeletedAtIsNull(String id);
 
-    void deleteByProductId(String productId);
+    List<Media> findByProductIdAndDeletedAtIsNull(String productId);
 
-    long countByProductId(String productId);
+    // One $in query for a whole page of products
+    List<Media> findByProductIdInAndDeletedAtIsNull(Collection<String> productIds);
+
+    // The oldest image of each product, as findFirstByProductIdAndDeletedAtIsNullOrderByIdAsc, in one query
+    @Aggregation(pipeline = {
+            "{ '$match' : { 'productId' : { '$in' : ?0 }, 'deletedAt' : null } }",
+            "{ '$sort' : { 'productId' : 1, '_id' : 1 } }",
+            "{ '$group' : { '_id' : '$productId', 'media' : { '$first' : '$$ROOT' } } }",
+            "{ '$replaceRoot' : { 'newRoot' : '$media' } }" })
+    List<Media> findPrimaryByProductIdIn(Collection<String> productIds);
+
+    long countByProductIdAndDeletedAtIsNull(String productId);
+
+    // Object ids grow with insertion time, so this is the oldest image
+    Optional<Media> findFirstByProductIdAndDeletedAtIsNullOrderByIdAsc(String productId);
+
+    @Query("{ '_id' : ?0, 'deletedAt' : null }")
+    @Update("{ '$set' : { 'deletedAt' : ?1, 'reapAfter' : ?1 } }")
+    long tombstoneById(String id, Instant deletedAt);
+
+    @Query("{ 'productId' : ?0, 'deletedAt' : null }")
+    @Update("{ '$set' : { 'deletedAt' : ?1, 'reapAfter' : ?1 } }")
+    long tombstoneByProductId(String productId, Instant deletedAt);
+
+    // Tombstones due for the reaper, oldest due first
+    List<Media> findByReapAfterLessThanEqualOrderByReapAfterAsc(Instant now, Pageable page);
+
+    long countByReapAfterIsNotNull();
+
+    // Takes a due tombstone for one reaper by moving reapAfter from the value it read to the end of its lease
+    @Query("{ '_id' : ?0, 'reapAfter' : ?1 }")
+    @Update("{ '$set' : { 'reapAfter' : ?2 } }")
+    long claimForReaping(String id, Instant reapAfter, Instant leaseUntil);
+
+    // Only one reaper ever wins this, and only the winner drops the blob reference. $ne also
+    // matches media written before the flag existed
+    @Query("{ '_id' : ?0, 'referenceReleased' : { '$ne' : true } }")
+    @Update("{ '$set' : { 'referenceReleased' : true } }")
+    long markReferenceReleased(String id);
+
+    @Query("{ '_id' : ?0 }")
+    @Update("{ '$set' : { 'fileOrphaned' : true } }")
+    long markFileOrphaned(String id);
+
+    // Leaves the tombstone alone if another reaper took it over meanwhile
+    @Query("{ '_id' : ?0, 'reapAfter' : ?1 }")
+    @Update("{ '$set' : { 'reapAfter' : ?2, 'reapAttempts' : ?3 } }")
+    long rescheduleReaping(String id, Instant leaseUntil, Instant reapAfter, int reapAttempts);
+
+    @Query("{ 'imagePath' : ?0 }")
+    @Update("{ '$set' : { 'imagePath' : ?1 } }")
+    long updateImagePath(String oldPath, String newPath);
 }
@@ -0,0 +1,23 @@
+package com.buyapp.mediaservice.repository;
+
+import com.buyapp.mediaservice.model.UploadSession;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends MongoRepository<UploadSession, String> {
+    List<UploadSession> findByExpiresAtBefore(Instant time);
+
+    // Records a chunk only while no other chunk has been recorded at its offset
+    @Query("{ '_id' : ?0, 'offset' : ?1 }")
+    @Update("{ '$set' : { 'offset' : ?2, 'expiresAt' : ?4 }, '$push' : { 'parts' : ?3 } }")
+    long addPart(String id, long offset, long newOffset, String part, Instant expiresAt);
+
+    // Ends a fully received session, so only one completion wins
+    long deleteByIdAndOffset(String id, long offset);
+}
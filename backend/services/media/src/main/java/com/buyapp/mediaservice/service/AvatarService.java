@@ -1,48 +1,60 @@
 package com.buyapp.mediaservice.service;
 
+import com.buyapp.common.client.UserDirectoryClient;
 import com.buyapp.common.dto.UserDto;
 import com.buyapp.common.exception.BadRequestException;
 import com.buyapp.common.exception.ForbiddenException;
 import com.buyapp.common.exception.ResourceNotFoundException;
 import com.buyapp.mediaservice.model.Avatar;
 import com.buyapp.mediaservice.repository.AvatarRepository;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.util.retry.Retry;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.Optional;
 import java.util.UUID;
 
 @Service
 public class AvatarService {
 
+    private static final Logger log = LoggerFactory.getLogger(AvatarService.class);
+
     @Autowired
     private AvatarRepository avatarRepository;
 
     @Autowired
     private WebClient.Builder webClientBuilder;
 
-    private static final String AVATAR_UPLOAD_DIR = "uploads/avatars/";
+    @Autowired
+    private UserDirectoryClient userDirectoryClient;
+
+    @Autowired
+    private MediaStore mediaStore;
+
+    @Value("${media.remote-call-timeout:3s}")
+    private Duration remoteCallTimeout;
+
     private static final long MAX_FILE_SIZE = 2 * 1024 * 1024; // 2MB
-    private static final String[] ALLOWED_CONTENT_TYPES = {
-            "image/jpeg", "image/jpg", "image/png", "image/gif", "image/webp"
-    };
+    private static final int USER_SYNC_RETRIES = 2;
+    private static final Duration USER_SYNC_BACKOFF = Duration.ofMillis(200);
 
     public AvatarService() {
         // Create upload directory if it doesn't exist
         try {
-            Path uploadPath = Paths.get(AVATAR_UPLOAD_DIR);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
+            Files.createDirectories(StoragePaths.AVATARS_DIR);
         } catch (IOException e) {
             throw new RuntimeException("Could not create avatar upload directory", e);
         }
@@ -50,11 +62,11 @@ public class AvatarService {
 
     @Transactional
     public Avatar uploadAvatar(MultipartFile file, Authentication authentication) {
-        validateFile(file);
+        ImageType type = validateFile(file);
 
         // Get current user information from User Service
         String userEmail = authentication.getName();
-        UserDto currentUser = getUserFromService(userEmail);
+        UserDto currentUser = userDirectoryClient.getUserByEmail(userEmail);
         if (currentUser == null) {
             throw new IllegalArgumentException("Authenticated user not found");
         }
@@ -64,40 +76,48 @@ public class AvatarService {
             throw new ForbiddenException("Only sellers can upload avatars");
         }
 
-        // Delete existing avatar if exists
         Optional<Avatar> existingAvatar = avatarRepository.findByUserId(currentUser.getId());
-        if (existingAvatar.isPresent()) {
-            deleteAvatarFile(existingAvatar.get().getImagePath());
-            avatarRepository.delete(existingAvatar.get());
-        }
 
+        String key;
+        String contentHash;
         try {
             // Generate unique filename
-            String originalFilename = file.getOriginalFilename();
-            String fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
-            String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
-
-            // Save file to disk
-            Path targetLocation = Paths.get(AVATAR_UPLOAD_DIR + uniqueFilename);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            String uniqueFilename = UUID.randomUUID().toString() + type.getExtension();
+
+            // Receive the file locally, then hand it to the store
+            key = StoragePaths.pathFor(StoragePaths.AVATARS_DIR, uniqueFilename).toString();
+            Path temp = Files.createTempFile(StoragePaths.AVATARS_DIR, "upload-", ".tmp");
+            try {
+                contentHash = ContentHash.copy(file.getInputStream(), temp);
+                mediaStore.put(key, temp);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new BadRequestException("Could not store avatar file: " + e.getMessage());
+        }
 
-            // Create avatar entity
-            Avatar avatar = new Avatar();
-            avatar.setImagePath(AVATAR_UPLOAD_DIR + uniqueFilename);
-            avatar.setUserId(currentUser.getId());
-            avatar.setFileName(originalFilename);
-            avatar.setContentType(file.getContentType());
-            avatar.setFileSize(file.getSize());
+        // The id is assigned up front so User Service can be pointed at the new avatar before the old one
+        // is replaced; if that fails the upload is abandoned and the current avatar stays intact
+        String avatarId = new ObjectId().toHexString();
+        try {
+            updateUserAvatar(currentUser.getId(), avatarId);
+        } catch (RuntimeException e) {
+            deleteAvatarFile(key);
+            throw e;
+        }
 
-            Avatar saved = avatarRepository.save(avatar);
+        // Replace the existing avatar, if any
+        if (existingAvatar.isPresent()) {
+            deleteAvatarFile(existingAvatar.get().getImagePath());
+            avatarRepository.delete(existingAvatar.get());
+        }
 
-            // Update user's avatar field in User Service
-            updateUserAvatar(currentUser.getId(), saved.getId());
+        Avatar avatar = new Avatar(avatarId, key, currentUser.getId(), file.getOriginalFilename(),
+                type.getContentType(), file.getSize());
+        avatar.setContentHash(contentHash);
 
-            return saved;
-        } catch (IOException e) {
-            throw new BadRequestException("Could not store avatar file: " + e.getMessage());
-        }
+        return avatarRepository.save(avatar);
     }
 
     public Avatar getAvatarByUserId(String userId) {
@@ -117,7 +137,7 @@ public class AvatarService {
     @Transactional
     public void deleteAvatar(Authentication authentication) {
         String userEmail = authentication.getName();
-        UserDto currentUser = getUserFromService(userEmail);
+        UserDto currentUser = userDirectoryClient.getUserByEmail(userEmail);
         if (currentUser == null) {
             throw new IllegalArgumentException("Authenticated user not found");
         }
@@ -127,38 +147,26 @@ public class AvatarService {
             throw new ResourceNotFoundException("No avatar found for current user");
         }
 
+        // Clear user's avatar field first, so a failure leaves the avatar in place
+        updateUserAvatar(currentUser.getId(), null);
+
         // Delete file from disk
         deleteAvatarFile(avatar.get().getImagePath());
 
         // Delete from database
         avatarRepository.delete(avatar.get());
-
-        // Clear user's avatar field
-        updateUserAvatar(currentUser.getId(), null);
     }
 
     private void deleteAvatarFile(String imagePath) {
         try {
-            Path filePath = Paths.get(imagePath);
-            Files.deleteIfExists(filePath);
+            mediaStore.delete(imagePath);
         } catch (IOException e) {
-            System.err.println("Could not delete avatar file: " + imagePath + " - " + e.getMessage());
-        }
-    }
-
-    private UserDto getUserFromService(String email) {
-        try {
-            return webClientBuilder.build()
-                    .get()
-                    .uri("http://user-service/users/email/{email}", email)
-                    .retrieve()
-                    .bodyToMono(UserDto.class)
-                    .block();
-        } catch (Exception e) {
-            return null;
+            log.warn("Could not delete avatar file {}: {}", imagePath, e.getMessage());
         }
     }
 
+    // Waits for User Service, retrying briefly, so the request fails instead of leaving the user's
+    // avatar field pointing at the wrong avatar
     private void updateUserAvatar(String userId, String avatarId) {
         try {
             webClientBuilder.build()
@@ -168,13 +176,17 @@ public class AvatarService {
                     .bodyValue(avatarId != null ? avatarId : "")
                     .retrieve()
                     .bodyToMono(Void.class)
+                    .timeout(remoteCallTimeout)
+                    .retryWhen(Retry.backoff(USER_SYNC_RETRIES, USER_SYNC_BACKOFF))
                     .block();
-        } catch (Exception e) {
-            System.err.println("Could not update user avatar: " + e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Could not update avatar of user {} in User Service", userId, e);
+            throw new IllegalStateException("Could not update user avatar, please try again", e);
         }
     }
 
-    private void validateFile(MultipartFile file) {
+    // The format is taken from the file's magic bytes, so a spoofed content type is rejected
+    private ImageType validateFile(MultipartFile file) {
         if (file.isEmpty()) {
             throw new BadRequestException("File cannot be empty");
         }
@@ -183,22 +195,15 @@ public class AvatarService {
             throw new BadRequestException("File size exceeds maximum limit of 2MB");
         }
 
-        String contentType = file.getContentType();
-        boolean isValidType = false;
-        for (String allowedType : ALLOWED_CONTENT_TYPES) {
-            if (allowedType.equals(contentType)) {
-                isValidType = true;
-                break;
-            }
-        }
-
-        if (!isValidType) {
-            throw new BadRequestException("Invalid file type. Only image files (JPEG, PNG, GIF, WebP) are allowed");
-        }
-
         String originalFilename = file.getOriginalFilename();
         if (originalFilename == null || originalFilename.trim().isEmpty()) {
             throw new BadRequestException("Invalid filename");
         }
+
+        try (InputStream input = file.getInputStream()) {
+            return ImageType.detect(input.readNBytes(ImageType.HEADER_LENGTH));
+        } catch (IOException e) {
+            throw new BadRequestException("Could not read avatar file: " + e.getMessage());
+        }
     }
 }
@@ -0,0 +1,285 @@
+package com.buyapp.mediaservice.service;
+
+import com.buyapp.common.exception.BadRequestException;
+import com.buyapp.mediaservice.model.Blob;
+import com.buyapp.mediaservice.repository.BlobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Content-addressed file store. Each distinct file is written once, named by
+ * the SHA-256 of its contents, and reference counted, so the same image
+ * uploaded to many products takes the disk space of one.
+ *
+ * Reference counts are only changed by single atomic updates in Mongo, so
+ * instances sharing the database never lose or double count a reference. The
+ * file of a blob whose last reference was dropped is deleted under a claim on
+ * its record; storing the same contents meanwhile waits for the delete to
+ * finish and then writes the file again. A claim left by a crashed instance is
+ * taken over after {@link #DELETE_CLAIM}.
+ *
+ * Uploads are received into a staging directory on local disk and then put
+ * into the {@link MediaStore}, which may be remote.
+ */
+@Service
+public class BlobStore {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobStore.class);
+
+    static final Duration DELETE_CLAIM = Duration.ofMinutes(1);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int REFERENCE_ATTEMPTS = 20;
+    private static final long REFERENCE_RETRY_MILLIS = 100;
+
+    private final BlobRepository blobRepository;
+    private final MediaStore mediaStore;
+    private final Path blobDir;
+
+    @Autowired
+    public BlobStore(BlobRepository blobRepository, MediaStore mediaStore) {
+        this(blobRepository, mediaStore, StoragePaths.IMAGES_DIR);
+    }
+
+    BlobStore(BlobRepository blobRepository, MediaStore mediaStore, Path blobDir) {
+        this.blobRepository = blobRepository;
+        this.mediaStore = mediaStore;
+        this.blobDir = blobDir;
+    }
+
+    /**
+     * Stores the contents and adds a reference to them. Known contents are only
+     * counted, not written again.
+     *
+     * @param extension file extension including the dot, kept so the stored
+     *                  file still says what format it is
+     */
+    public Blob store(InputStreamSource source, String extension) throws IOException {
+        StagedFile staged;
+        try (InputStream input = source.getInputStream()) {
+            staged = stage(input, Long.MAX_VALUE);
+        }
+        try {
+            return commit(staged, extension);
+        } finally {
+            discard(staged);
+        }
+    }
+
+    /**
+     * Receives a stream into a temporary staging file, hashing it on
+     * the way, so the contents are read and written exactly once. The file is
+     * deleted if the stream fails or runs past {@code maxSize} bytes.
+     */
+    public StagedFile stage(InputStream input, long maxSize) throws IOException {
+        Files.createDirectories(blobDir);
+        Path temp = Files.createTempFile(blobDir, "upload-", ".tmp");
+        MessageDigest digest = ContentHash.sha256();
+        long size = 0;
+        try (OutputStream output = Files.newOutputStream(temp)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                size += read;
+                if (size > maxSize) {
+                    throw new BadRequestException("File size exceeds maximum limit of " + maxSize / (1024 * 1024) + "MB");
+                }
+                digest.update(buffer, 0, read);
+                output.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return new StagedFile(temp, HexFormat.of().formatHex(digest.digest()), size);
+    }
+
+    /**
+     * An empty staging file, for uploads received over several
+     * requests. Hand it to {@link #stage(Path)} once complete.
+     */
+    public Path createStagingFile() throws IOException {
+        Files.createDirectories(blobDir);
+        return Files.createTempFile(blobDir, "session-", ".tmp");
+    }
+
+    /**
+     * Stages a file that was received into the staging directory, hashing its
+     * contents.
+     */
+    public StagedFile stage(Path file) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            return new StagedFile(file, ContentHash.of(input), Files.size(file));
+        }
+    }
+
+    /**
+     * Turns a staged file into a reference to its blob. New contents are put
+     * into the store, known ones are counted and the staged copy is dropped.
+     */
+    public Blob commit(StagedFile staged, String extension) throws IOException {
+        String key = StoragePaths.pathFor(blobDir, staged.hash() + extension.toLowerCase()).toString();
+        Blob blob = addReference(staged.hash(), key, staged.size());
+        try {
+            // The first reference writes the file, later ones only put back a file that was lost
+            if (blob.getRefCount() == 1 || !mediaStore.exists(blob.getPath())) {
+                mediaStore.put(blob.getPath(), staged.path());
+            } else {
+                discard(staged);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Nothing will point at the reference taken above
+            try {
+                blobRepository.dropReference(blob.getId(), blob.getPath());
+            } catch (RuntimeException dropFailure) {
+                e.addSuppressed(dropFailure);
+            }
+            throw e;
+        }
+        return blob;
+    }
+
+    /**
+     * Deletes a staged file that will not be committed. Safe to call after a
+     * commit.
+     */
+    public void discard(StagedFile staged) {
+        try {
+            Files.deleteIfExists(staged.path());
+        } catch (IOException e) {
+            log.warn("Could not delete staged upload {}: {}", staged.path(), e.getMessage());
+        }
+    }
+
+    /**
+     * Drops one reference to a stored file and deletes it with the last one.
+     * Files stored before deduplication are not tracked and are deleted
+     * directly.
+     *
+     * @return whether the file was deleted
+     */
+    public boolean release(String hash, String path) {
+        if (!dropReference(hash, path)) {
+            return false;
+        }
+        try {
+            return deleteUnreferenced(hash, path);
+        } catch (IOException e) {
+            log.warn("Could not delete file {}: {}", path, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * The first half of {@link #release}: drops one reference without touching
+     * the file. Call it once per reference.
+     *
+     * @return whether no reference is left, so the file should be deleted with
+     *         {@link #deleteUnreferenced}
+     */
+    public boolean dropReference(String hash, String path) {
+        if (hash == null) {
+            return true;
+        }
+        Optional<Blob> tracked = tracked(hash, path);
+        if (tracked.isEmpty()) {
+            return true;
+        }
+        Blob blob = blobRepository.dropReference(hash, tracked.get().getPath());
+        return blob != null && blob.getRefCount() <= 0;
+    }
+
+    /**
+     * The second half of {@link #release}: deletes a file whose last reference
+     * was dropped. Safe to retry. The file is kept if the same contents have
+     * been stored again since.
+     *
+     * @return whether the file was deleted (or already gone)
+     * @throws IOException also when another instance is deleting the file
+     *                     right now, so the caller retries later
+     */
+    public boolean deleteUnreferenced(String hash, String path) throws IOException {
+        if (hash == null) {
+            mediaStore.delete(path);
+            return true;
+        }
+        Optional<Blob> tracked = tracked(hash, path);
+        if (tracked.isEmpty()) {
+            // A content-addressed file without a record was deleted with it, anything else is an untracked copy
+            if (!Path.of(path).getFileName().toString().startsWith(hash)) {
+                mediaStore.delete(path);
+            }
+            return true;
+        }
+
+        if (tracked.get().getRefCount() > 0) {
+            return false;
+        }
+
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        Blob claimed = blobRepository.claimForDeletion(hash, tracked.get().getPath(), now, now.minus(DELETE_CLAIM));
+        if (claimed == null) {
+            Optional<Blob> current = blobRepository.findById(hash);
+            if (current.isEmpty()) {
+                return true;
+            }
+            if (current.get().getRefCount() > 0) {
+                return false;
+            }
+            throw new IOException("File " + path + " is being deleted by another instance");
+        }
+        mediaStore.delete(claimed.getPath());
+        if (!blobRepository.deleteClaimed(hash, claimed.getDeletingSince())) {
+            log.warn("Blob {} was taken over while its file was being deleted", hash);
+        }
+        return true;
+    }
+
+    // Adds a reference, waiting while another instance deletes the file of the same contents
+    private Blob addReference(String hash, String key, long size) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return blobRepository.addReference(hash, key, size, Instant.now().minus(DELETE_CLAIM));
+            } catch (DuplicateKeyException e) {
+                if (attempt == REFERENCE_ATTEMPTS) {
+                    throw new IOException("Stored file " + hash + " is still being deleted", e);
+                }
+            }
+            try {
+                Thread.sleep(REFERENCE_RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while storing " + hash, e);
+            }
+        }
+    }
+
+    // The blob record when it is the one at this path. Compared by location,
+    // since a migration may rewrite one record before the other
+    private Optional<Blob> tracked(String hash, String path) {
+        return blobRepository.findById(hash)
+                .filter(blob -> StoragePaths.locate(blob.getPath()).equals(StoragePaths.locate(path)));
+    }
+
+    /**
+     * An upload received to a temporary file, not yet part of the store.
+     */
+    public record StagedFile(Path path, String hash, long size) {
+    }
+}
@@ -0,0 +1,53 @@
+package com.buyapp.mediaservice.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 of stored files, computed while the upload is copied to disk so the
+ * bytes are only read once.
+ */
+public final class ContentHash {
+
+    private ContentHash() {
+    }
+
+    /**
+     * Copies the stream to the target file and returns the hex SHA-256 of what
+     * was written.
+     */
+    public static String copy(InputStream source, Path target) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream digesting = new DigestInputStream(source, digest)) {
+            Files.copy(digesting, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Hex SHA-256 of everything left in the stream.
+     */
+    public static String of(InputStream source) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream digesting = new DigestInputStream(source, digest)) {
+            digesting.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
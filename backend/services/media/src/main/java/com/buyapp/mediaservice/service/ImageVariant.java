@@ -0,0 +1,56 @@
+package com.buyapp.mediaservice.service;
+
+import com.buyapp.common.exception.BadRequestException;
+
+/**
+ * Fixed-width renditions of product images. Variants keep the aspect ratio of
+ * the original and are never larger than it.
+ */
+public enum ImageVariant {
+    THUMB(200),
+    SMALL(400),
+    MEDIUM(800),
+    LARGE(1200);
+
+    private final int width;
+
+    ImageVariant(int width) {
+        this.width = width;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * The variant for a request, by width ({@code w}) or by name
+     * ({@code size}). A width picks the smallest variant at least that wide.
+     * Returns null when the original should be served, which is when neither
+     * is given or the width is above the largest variant.
+     */
+    public static ImageVariant select(Integer requestedWidth, String name) {
+        if (requestedWidth != null && name != null) {
+            throw new BadRequestException("Use either w or size, not both");
+        }
+        if (name != null) {
+            for (ImageVariant variant : values()) {
+                if (variant.name().equalsIgnoreCase(name)) {
+                    return variant;
+                }
+            }
+            throw new BadRequestException("Unknown image size: " + name);
+        }
+        if (requestedWidth == null) {
+            return null;
+        }
+        if (requestedWidth < 1) {
+            throw new BadRequestException("Width must be positive");
+        }
+        for (ImageVariant variant : values()) {
+            if (variant.width >= requestedWidth) {
+                return variant;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,266 @@
+package com.buyapp.mediaservice.service;
+
+import com.buyapp.mediaservice.model.Media;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Generates and serves resized variants of product images, stored beside the
+ * original as {@code <name>_w<width>.<jpg|png>}.
+ *
+ * Variants are written eagerly after an upload and lazily on first request for
+ * media uploaded before variants existed. Variants are encoded into a
+ * temporary file and put into the {@link MediaStore} whole, so a reader never
+ * sees a partial image. Formats
+ * ImageIO cannot decode (WebP) and originals narrower than a variant are served
+ * as they are, and so are originals whose header declares more than
+ * {@code media.variants.max-pixels} pixels, so a small but hugely compressed
+ * upload cannot exhaust the heap. Large originals are decoded subsampled, at
+ * no more than twice the width of the widest variant needed.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantService.class);
+
+    private static final float JPEG_QUALITY = 0.85f;
+    private static final int LOCK_STRIPES = 64;
+
+    // One generation at a time per original, so the upload listener and lazy
+    // requests do not resize the same image twice
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private final MediaStore mediaStore;
+    // Where variants are encoded before they are put into the store
+    private final Path workDir;
+    private final long maxPixels;
+
+    @Autowired
+    public ImageVariantService(MediaStore mediaStore,
+            @Value("${media.variants.max-pixels:40000000}") long maxPixels) {
+        this(mediaStore, StoragePaths.IMAGES_DIR, maxPixels);
+    }
+
+    ImageVariantService(MediaStore mediaStore, Path workDir, long maxPixels) {
+        this.mediaStore = mediaStore;
+        this.workDir = workDir;
+        this.maxPixels = maxPixels;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public void generateVariants(Media media) {
+        String original = media.getImagePath();
+        synchronized (lockFor(original)) {
+            List<ImageVariant> missing = new ArrayList<>();
+            for (ImageVariant variant : ImageVariant.values()) {
+                if (!mediaStore.exists(variantKey(original, variant))) {
+                    missing.add(variant);
+                }
+            }
+            if (missing.isEmpty()) {
+                return;
+            }
+            int narrowest = missing.stream().mapToInt(ImageVariant::getWidth).min().getAsInt();
+            int widest = missing.stream().mapToInt(ImageVariant::getWidth).max().getAsInt();
+            BufferedImage source = read(original, narrowest, widest);
+            if (source == null) {
+                return;
+            }
+            // Subsampling keeps at least twice the widest width, so these comparisons still hold
+            for (ImageVariant variant : missing) {
+                if (source.getWidth() > variant.getWidth()) {
+                    write(source, variant, variantKey(original, variant));
+                }
+            }
+        }
+    }
+
+    /**
+     * Key of the file to serve for a variant, generating it if needed. Falls
+     * back to the original when no variant applies or generation fails.
+     */
+    public String resolve(Media media, ImageVariant variant) {
+        String original = media.getImagePath();
+        String target = variantKey(original, variant);
+        if (mediaStore.exists(target)) {
+            return target;
+        }
+
+        synchronized (lockFor(original)) {
+            if (mediaStore.exists(target)) {
+                return target;
+            }
+            // Only the header is read to decide, so small originals stay cheap to serve
+            BufferedImage source = read(original, variant.getWidth(), variant.getWidth());
+            if (source != null && source.getWidth() > variant.getWidth() && write(source, variant, target)) {
+                return target;
+            }
+        }
+        return original;
+    }
+
+    public void deleteVariants(Media media) {
+        String original = media.getImagePath();
+        for (ImageVariant variant : ImageVariant.values()) {
+            try {
+                mediaStore.delete(variantKey(original, variant));
+            } catch (IOException e) {
+                log.warn("Could not delete {} variant of {}: {}", variant, original, e.getMessage());
+            }
+        }
+    }
+
+    static String variantKey(String original, ImageVariant variant) {
+        Path path = Paths.get(original);
+        String fileName = path.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        String baseName = dot > 0 ? fileName.substring(0, dot) : fileName;
+        return path.resolveSibling(baseName + "_w" + variant.getWidth() + "." + outputFormat(original)).toString();
+    }
+
+    // JPEG stays JPEG; everything else becomes PNG to keep transparency
+    static String outputFormat(String original) {
+        String fileName = original.toLowerCase();
+        return fileName.endsWith(".jpg") || fileName.endsWith(".jpeg") ? "jpg" : "png";
+    }
+
+    public static String contentType(String variant) {
+        return variant.endsWith(".jpg") ? "image/jpeg" : "image/png";
+    }
+
+    /**
+     * Scales to the given width in halving steps, which keeps bilinear
+     * filtering from dropping detail on large reductions.
+     */
+    static BufferedImage scaleToWidth(BufferedImage source, int width, boolean opaque) {
+        int type = opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        do {
+            currentWidth = Math.max(currentWidth / 2, width);
+            int height = Math.max(1, (int) Math.round((double) source.getHeight() * currentWidth / source.getWidth()));
+            BufferedImage next = new BufferedImage(currentWidth, height, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, currentWidth, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (currentWidth > width);
+        return current;
+    }
+
+    private boolean write(BufferedImage source, ImageVariant variant, String target) {
+        String format = outputFormat(target);
+        boolean opaque = "jpg".equals(format) || source.getTransparency() == Transparency.OPAQUE;
+        BufferedImage scaled = scaleToWidth(source, variant.getWidth(), opaque);
+
+        Path temp = null;
+        try {
+            Files.createDirectories(workDir);
+            temp = Files.createTempFile(workDir, "variant-", ".tmp");
+            writeImage(scaled, format, temp);
+            mediaStore.put(target, temp);
+            return true;
+        } catch (IOException e) {
+            log.warn("Could not write {} variant {}: {}", variant, target, e.getMessage());
+            return false;
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // Nothing left to clean up
+                }
+            }
+        }
+    }
+
+    private static void writeImage(BufferedImage image, String format, Path target) throws IOException {
+        if (!"jpg".equals(format)) {
+            ImageIO.write(image, format, target.toFile());
+            return;
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Decodes the original for variants from {@code narrowest} up to
+     * {@code widest} pixels wide. Null when it is missing, not decodable, no
+     * wider than {@code narrowest} or declares more than {@link #maxPixels}
+     * pixels; the last two are told from the header without decoding.
+     */
+    private BufferedImage read(String original, int narrowest, int widest) {
+        try (MediaStore.Content content = mediaStore.open(original);
+                ImageInputStream input = ImageIO.createImageInputStream(content.stream())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (width <= narrowest) {
+                    return null;
+                }
+                if ((long) width * height > maxPixels) {
+                    log.warn("Not resizing image {}: {}x{} is more than {} pixels", original, width, height,
+                            maxPixels);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, width / (2 * widest));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            log.warn("Could not read image {}: {}", original, e.getMessage());
+            return null;
+        }
+    }
+
+    private Object lockFor(String original) {
+        return locks[Math.floorMod(original.hashCode(), LOCK_STRIPES)];
+    }
+}
@@ -0,0 +1,65 @@
+package com.buyapp.mediaservice.service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+
+/**
+ * Files on this instance's disk, at the path their key names. Keys recorded
+ * before the fan-out are found through {@link StoragePaths#locate}, whether or
+ * not the migration has moved them yet.
+ */
+public class LocalMediaStore implements MediaStore {
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        Path target = StoragePaths.locate(key);
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // On another file system: copy beside the target first, so it still appears whole
+            Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(),
+                    ".tmp");
+            try {
+                Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Files.delete(source);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(StoragePaths.locate(key));
+    }
+
+    @Override
+    public Content open(String key) throws IOException {
+        Path file = StoragePaths.locate(key);
+        long length = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        return new Content(Files.newInputStream(file), length, lastModified);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(StoragePaths.locate(key));
+    }
+
+    @Override
+    public Path localFile(String key) {
+        return StoragePaths.locate(key);
+    }
+
+    @Override
+    public URI presignedUrl(String key, Duration ttl, String contentType, String fileName, String cacheControl) {
+        return null;
+    }
+}
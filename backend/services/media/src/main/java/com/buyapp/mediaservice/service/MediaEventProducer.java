@@ -5,11 +5,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
 public class MediaEventProducer {
@@ -21,6 +23,11 @@ public class MediaEventProducer {
     @Value("${kafka.topic.media-events:media-events}")
     private String mediaEventsTopic;
 
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final Executor virtualCallbackExecutor = new VirtualThreadTaskExecutor("kafka-callback-");
+
     public MediaEventProducer(KafkaTemplate<String, MediaEvent> kafkaTemplate) {
         this.kafkaTemplate = kafkaTemplate;
     }
@@ -28,10 +35,14 @@ public class MediaEventProducer {
     public void sendMediaEvent(MediaEvent event) {
         logger.info("Sending media event: {}", event);
 
-        CompletableFuture<SendResult<String, MediaEvent>> future = kafkaTemplate.send(mediaEventsTopic,
-                event.getMediaId(), event);
+        // Keyed by product so that consumers see a product's image changes in order
+        String key = event.getProductId() != null ? event.getProductId() : event.getMediaId();
+        CompletableFuture<SendResult<String, MediaEvent>> future = kafkaTemplate.send(mediaEventsTopic, key,
+                event);
 
-        future.whenComplete((result, ex) -> {
+        // Without virtual threads the callback stays on the producer's I/O thread
+        Executor callbackExecutor = virtualThreads ? virtualCallbackExecutor : Runnable::run;
+        future.whenCompleteAsync((result, ex) -> {
             if (ex == null) {
                 logger.info("Successfully sent media event [{}] with offset=[{}]",
                         event.getEventType(), result.getRecordMetadata().offset());
@@ -39,6 +50,6 @@ public class MediaEventProducer {
                 logger.error("Failed to send media event [{}]: {}",
                         event.getEventType(), ex.getMessage());
             }
-        });
+        }, callbackExecutor);
     }
 }
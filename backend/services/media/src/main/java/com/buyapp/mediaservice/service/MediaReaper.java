@@ -0,0 +1,198 @@
+package com.buyapp.mediaservice.service;
+
+import com.buyapp.mediaservice.model.Media;
+import com.buyapp.mediaservice.repository.MediaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Removes the files of deleted media in the background. Deleting media only
+ * tombstones its records, so a request or event handler never waits on file
+ * I/O; the reaper then releases each file, deletes it with its variants when
+ * no other media shares it, and finally deletes the record.
+ *
+ * Tombstones are taken in batches and reaped on a fixed pool of workers. Each
+ * is first claimed for {@code media.reaper.lease} by moving its reapAfter
+ * forward in one conditional update, so instances sharing the database never
+ * reap it at the same time. A failed tombstone is retried with exponential
+ * backoff. The blob reference is only dropped by whoever marks it released
+ * first, so neither a second reaper nor a retry drops it twice; a crash right
+ * after the mark leaves the file behind rather than risking it.
+ *
+ * Publishes {@code media.reaper.backlog} (tombstones left) and the
+ * {@code media.reaper.reaped} and {@code media.reaper.failures} counters.
+ */
+@Service
+public class MediaReaper {
+
+    private static final Logger log = LoggerFactory.getLogger(MediaReaper.class);
+
+    private static final Duration MAX_RETRY_DELAY = Duration.ofHours(1);
+
+    private final MediaRepository mediaRepository;
+    private final BlobStore blobStore;
+    private final ImageVariantService imageVariantService;
+    private final int batchSize;
+    private final Duration retryDelay;
+    private final Duration lease;
+    private final ExecutorService workers;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final Counter reaped;
+    private final Counter failures;
+
+    @Autowired
+    public MediaReaper(MediaRepository mediaRepository, BlobStore blobStore, ImageVariantService imageVariantService,
+            MeterRegistry meterRegistry,
+            @Value("${media.reaper.batch-size:100}") int batchSize,
+            @Value("${media.reaper.threads:8}") int threads,
+            @Value("${media.reaper.retry-delay:30s}") Duration retryDelay,
+            @Value("${media.reaper.lease:PT5M}") Duration lease) {
+        this.mediaRepository = mediaRepository;
+        this.blobStore = blobStore;
+        this.imageVariantService = imageVariantService;
+        this.batchSize = batchSize;
+        this.retryDelay = retryDelay;
+        this.lease = lease;
+        this.workers = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("media-reaper-", 0).daemon().factory());
+
+        Gauge.builder("media.reaper.backlog", backlog, AtomicLong::get)
+                .description("Deleted media whose files are still to be removed")
+                .register(meterRegistry);
+        reaped = Counter.builder("media.reaper.reaped")
+                .description("Deleted media whose files and records have been removed")
+                .register(meterRegistry);
+        failures = Counter.builder("media.reaper.failures")
+                .description("Failed attempts to remove deleted media, retried later")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reaps every tombstone that is due, one batch after another.
+     */
+    @Scheduled(fixedDelayString = "${media.reaper.interval:PT10S}")
+    public void reap() {
+        reap(Instant.now());
+    }
+
+    void reap(Instant now) {
+        try {
+            List<Media> batch;
+            int advanced;
+            do {
+                batch = mediaRepository.findByReapAfterLessThanEqualOrderByReapAfterAsc(now,
+                        PageRequest.of(0, batchSize));
+                advanced = reapBatch(batch, now);
+                // Failures are rescheduled past now, so each pass ends; stop early if nothing moved at all
+            } while (batch.size() == batchSize && advanced > 0);
+        } finally {
+            backlog.set(mediaRepository.countByReapAfterIsNotNull());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    // How many tombstones were reaped or rescheduled, not counting those another reaper holds
+    private int reapBatch(List<Media> batch, Instant now) {
+        List<Callable<Boolean>> tasks = new ArrayList<>(batch.size());
+        for (Media media : batch) {
+            tasks.add(() -> reapOne(media, now));
+        }
+        int advanced = 0;
+        try {
+            for (Future<Boolean> result : workers.invokeAll(tasks)) {
+                if (result.get()) {
+                    advanced++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Media reaper task failed: {}", e.getCause().getMessage(), e.getCause());
+        }
+        return advanced;
+    }
+
+    private boolean reapOne(Media media, Instant now) {
+        Instant leaseUntil = now.plus(lease);
+        if (mediaRepository.claimForReaping(media.getId(), media.getReapAfter(), leaseUntil) == 0) {
+            return false;
+        }
+        try {
+            if (!media.isReferenceReleased()) {
+                if (mediaRepository.markReferenceReleased(media.getId()) > 0) {
+                    if (blobStore.dropReference(media.getContentHash(), media.getImagePath())) {
+                        mediaRepository.markFileOrphaned(media.getId());
+                        media.setFileOrphaned(true);
+                    }
+                } else {
+                    // Released by a reaper whose lease ran out, so carry on from its record
+                    Optional<Media> current = mediaRepository.findById(media.getId());
+                    if (current.isEmpty()) {
+                        return true;
+                    }
+                    media.setFileOrphaned(current.get().isFileOrphaned());
+                }
+                media.setReferenceReleased(true);
+            }
+            if (media.isFileOrphaned() && blobStore.deleteUnreferenced(media.getContentHash(), media.getImagePath())) {
+                imageVariantService.deleteVariants(media);
+            }
+            mediaRepository.delete(media);
+            reaped.increment();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            failures.increment();
+            return reschedule(media, leaseUntil, now, e);
+        }
+    }
+
+    private boolean reschedule(Media media, Instant leaseUntil, Instant now, Exception cause) {
+        int attempts = media.getReapAttempts() + 1;
+        Duration delay = retryDelay(attempts);
+        log.warn("Could not remove deleted media {} (attempt {}), retrying in {}: {}", media.getId(), attempts, delay,
+                cause.getMessage());
+        media.setReapAttempts(attempts);
+        media.setReapAfter(now.plus(delay));
+        try {
+            mediaRepository.rescheduleReaping(media.getId(), leaseUntil, media.getReapAfter(), attempts);
+            return true;
+        } catch (RuntimeException e) {
+            // The lease runs out on its own, so the tombstone is retried anyway
+            log.warn("Could not reschedule deleted media {}: {}", media.getId(), e.getMessage());
+            return false;
+        }
+    }
+
+    // Doubles with every failed attempt, up to an hour
+    private Duration retryDelay(int attempts) {
+        Duration delay = retryDelay.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(MAX_RETRY_DELAY) > 0 ? MAX_RETRY_DELAY : delay;
+    }
+}
@@ -1,27 +1,38 @@
 package com.buyapp.mediaservice.service;
 
+import com.buyapp.common.client.UserDirectoryClient;
 import com.buyapp.common.dto.ProductDto;
 import com.buyapp.common.dto.UserDto;
 import com.buyapp.common.event.MediaEvent;
 import com.buyapp.common.exception.BadRequestException;
 import com.buyapp.common.exception.ForbiddenException;
 import com.buyapp.common.exception.ResourceNotFoundException;
+import com.buyapp.common.security.AuthenticatedUser;
+import com.buyapp.mediaservice.model.Blob;
 import com.buyapp.mediaservice.model.Media;
 import com.buyapp.mediaservice.repository.MediaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class MediaService {
@@ -32,105 +43,270 @@ public class MediaService {
     @Autowired
     private WebClient.Builder webClientBuilder;
 
+    @Autowired
+    private UserDirectoryClient userDirectoryClient;
+
     @Autowired
     private MediaEventProducer mediaEventProducer;
 
-    private static final String UPLOAD_DIR = "uploads/images/";
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Value("${media.remote-call-timeout:3s}")
+    private Duration remoteCallTimeout;
+
     private static final long MAX_FILE_SIZE = 2 * 1024 * 1024; // 2MB
     private static final int MAX_IMAGES_PER_PRODUCT = 5;
-    private static final String[] ALLOWED_CONTENT_TYPES = {
-            "image/jpeg", "image/jpg", "image/png", "image/gif", "image/webp"
-    };
+    // A full catalog page
+    private static final int MAX_BATCH_PRODUCTS = 100;
 
     public MediaService() {
         // Create upload directory if it doesn't exist
         try {
-            Path uploadPath = Paths.get(UPLOAD_DIR);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
+            Files.createDirectories(StoragePaths.IMAGES_DIR);
         } catch (IOException e) {
             throw new RuntimeException("Could not create upload directory", e);
         }
     }
 
-    public Media uploadMedia(MultipartFile file, String productId, Authentication authentication) {
-        validateFile(file);
+    /**
+     * The product and user lookups are independent, so they run in parallel and
+     * no request thread waits on them. Storing the file happens on the bounded
+     * elastic scheduler once both have arrived. Tokens that carry the user id
+     * need no user lookup at all.
+     */
+    public Mono<Media> uploadMedia(MultipartFile file, String productId, Authentication authentication) {
+        ImageType type = validateFile(file);
+
+        return uploadChecks(productId, authentication)
+                .publishOn(Schedulers.boundedElastic())
+                .map(product -> {
+                    checkCanAddMedia(productId);
+                    try {
+                        // Identical files share one blob on disk
+                        Blob blob = blobStore.store(file, type.getExtension());
+                        return saveMedia(blob, productId, file.getOriginalFilename(), type,
+                                authentication.getName());
+                    } catch (IOException e) {
+                        throw new BadRequestException("Could not store file: " + e.getMessage());
+                    }
+                });
+    }
 
-        // Verify product exists and user owns it via Product Service
-        ProductDto product = getProductFromService(productId);
-        if (product == null) {
-            throw new ResourceNotFoundException("Product not found with id: " + productId);
+    /**
+     * Uploads an image sent as the raw request body. Unlike a multipart upload,
+     * which the container buffers before the handler runs, the body is read
+     * once: its magic bytes are checked, it is hashed and size-limited while
+     * being written next to the stored files, and it is then renamed into
+     * place. The product and user lookups run while the body is received.
+     * Anything received is deleted if the upload fails.
+     */
+    public Mono<Media> uploadMediaStream(InputStream body, long contentLength, String fileName, String productId,
+            Authentication authentication) {
+        if (contentLength > MAX_FILE_SIZE) {
+            throw new BadRequestException("File size exceeds maximum limit of 2MB");
         }
+        CompletableFuture<ProductDto> product = uploadChecks(productId, authentication).toFuture();
 
-        // Get current user information from User Service
-        String userEmail = authentication.getName();
-        UserDto currentUser = getUserFromService(userEmail);
-        if (currentUser == null) {
-            throw new IllegalArgumentException("Authenticated user not found");
+        ImageType type;
+        BlobStore.StagedFile staged;
+        try {
+            BufferedInputStream input = new BufferedInputStream(body);
+            input.mark(ImageType.HEADER_LENGTH);
+            type = ImageType.detect(input.readNBytes(ImageType.HEADER_LENGTH));
+            input.reset();
+            staged = blobStore.stage(input, MAX_FILE_SIZE);
+        } catch (IOException e) {
+            throw new BadRequestException("Could not receive file: " + e.getMessage());
         }
 
-        // Check if user owns the product or is an admin
-        boolean isAdmin = authentication.getAuthorities().stream()
-                .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
+        return storeStaged(Mono.fromFuture(product), staged, type, fileName, productId, authentication);
+    }
 
-        if (!product.getUser().equals(userEmail) && !isAdmin) {
-            throw new ForbiddenException("You can only upload media for your own products");
-        }
+    /**
+     * Checks that the current user may add an image to the product, for
+     * uploads that are received before they are stored.
+     */
+    public Mono<Void> verifyCanUpload(String productId, Authentication authentication) {
+        return uploadChecks(productId, authentication)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(product -> checkCanAddMedia(productId))
+                .then();
+    }
 
+    /**
+     * Stores a fully received upload, such as a completed resumable upload.
+     * The staged file is dropped if the upload is refused.
+     */
+    public Mono<Media> completeStagedUpload(BlobStore.StagedFile staged, ImageType type, String fileName,
+            String productId, Authentication authentication) {
+        return storeStaged(uploadChecks(productId, authentication), staged, type, fileName, productId,
+                authentication);
+    }
+
+    private Mono<Media> storeStaged(Mono<ProductDto> product, BlobStore.StagedFile staged, ImageType type,
+            String fileName, String productId, Authentication authentication) {
+        String originalFilename = fileName != null && !fileName.isBlank() ? fileName : "image" + type.getExtension();
+        return product
+                .publishOn(Schedulers.boundedElastic())
+                .map(found -> {
+                    checkCanAddMedia(productId);
+                    try {
+                        Blob blob = blobStore.commit(staged, type.getExtension());
+                        return saveMedia(blob, productId, originalFilename, type, authentication.getName());
+                    } catch (IOException e) {
+                        throw new BadRequestException("Could not store file: " + e.getMessage());
+                    }
+                })
+                // A no-op once committed, otherwise drops what was received
+                .doFinally(signal -> blobStore.discard(staged));
+    }
+
+    // The product, once the user is known to still exist
+    private Mono<ProductDto> uploadChecks(String productId, Authentication authentication) {
+        String userEmail = authentication.getName();
+
+        // Verify product exists via Product Service
+        Mono<ProductDto> product = fetchProduct(productId)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Product not found with id: " + productId)));
+
+        // Otherwise check the user still exists via User Service
+        String tokenUserId = AuthenticatedUser.userIdOf(authentication);
+        Mono<String> currentUserId = tokenUserId != null
+                ? Mono.just(tokenUserId)
+                : Mono.fromFuture(() -> userDirectoryClient.findUserByEmail(userEmail))
+                        .onErrorResume(e -> Mono.empty())
+                        .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("Authenticated user not found")))
+                        .map(UserDto::getId);
+
+        return Mono.zip(product, currentUserId).map(found -> {
+            if (!isAdmin(authentication) && !found.getT2().equals(found.getT1().getUserId())) {
+                throw new ForbiddenException("You can only upload media for your own products");
+            }
+            return found.getT1();
+        });
+    }
+
+    // Ownership is checked with the product lookup, so only the image limit is left
+    private void checkCanAddMedia(String productId) {
         // Check if product already has maximum number of images
-        long currentImageCount = mediaRepository.countByProductId(productId);
+        long currentImageCount = mediaRepository.countByProductIdAndDeletedAtIsNull(productId);
         if (currentImageCount >= MAX_IMAGES_PER_PRODUCT) {
             throw new BadRequestException("Maximum of " + MAX_IMAGES_PER_PRODUCT + " images per product allowed");
         }
+    }
 
+    private Media saveMedia(Blob blob, String productId, String originalFilename, ImageType type, String userEmail) {
+        // Create media entity
+        Media media = new Media();
+        media.setImagePath(blob.getPath());
+        media.setProductId(productId);
+        media.setFileName(originalFilename);
+        media.setContentType(type.getContentType());
+        media.setFileSize(blob.getSize());
+        media.setContentHash(blob.getId());
+
+        Media saved;
         try {
-            // Generate unique filename
-            String originalFilename = file.getOriginalFilename();
-            String fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
-            String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
-
-            // Save file to disk
-            Path targetLocation = Paths.get(UPLOAD_DIR + uniqueFilename);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-
-            // Create media entity
-            Media media = new Media();
-            media.setImagePath(UPLOAD_DIR + uniqueFilename);
-            media.setProductId(productId);
-            media.setFileName(originalFilename);
-            media.setContentType(file.getContentType());
-            media.setFileSize(file.getSize());
-
-            Media saved = mediaRepository.save(media);
-
-            // Publish IMAGE_UPLOADED event
-            MediaEvent event = new MediaEvent(
-                    MediaEvent.EventType.IMAGE_UPLOADED,
-                    saved.getId(),
-                    productId,
-                    originalFilename,
-                    file.getContentType(),
-                    file.getSize(),
-                    userEmail);
-            mediaEventProducer.sendMediaEvent(event);
-
-            return saved;
-        } catch (IOException e) {
-            throw new BadRequestException("Could not store file: " + e.getMessage());
+            saved = mediaRepository.save(media);
+        } catch (RuntimeException e) {
+            blobStore.release(blob.getId(), blob.getPath());
+            throw e;
         }
+
+        // Publish IMAGE_UPLOADED event
+        MediaEvent event = new MediaEvent(
+                MediaEvent.EventType.IMAGE_UPLOADED,
+                saved.getId(),
+                productId,
+                originalFilename,
+                type.getContentType(),
+                blob.getSize(),
+                userEmail);
+        event.setPrimaryMediaId(primaryMediaId(productId));
+        mediaEventProducer.sendMediaEvent(event);
+
+        return saved;
     }
 
     public List<Media> getMediaByProductId(String productId) {
-        return mediaRepository.findByProductId(productId);
+        return mediaRepository.findByProductIdAndDeletedAtIsNull(productId);
+    }
+
+    /**
+     * Media of many products in one query, keyed by product id in the order
+     * asked for. Products without media map to an empty list.
+     */
+    public Map<String, List<Media>> getMediaByProductIds(List<String> productIds) {
+        Set<String> ids = batchIds(productIds);
+        Map<String, List<Media>> byProduct = new LinkedHashMap<>();
+        for (String id : ids) {
+            byProduct.put(id, new ArrayList<>());
+        }
+        for (Media media : mediaRepository.findByProductIdInAndDeletedAtIsNull(ids)) {
+            byProduct.get(media.getProductId()).add(media);
+        }
+        return byProduct;
+    }
+
+    /**
+     * The primary (oldest) image of each product, in one query. Products
+     * without media are left out.
+     */
+    public Map<String, Media> getPrimaryMediaByProductIds(List<String> productIds) {
+        Set<String> ids = batchIds(productIds);
+        Map<String, Media> found = new LinkedHashMap<>();
+        for (Media media : mediaRepository.findPrimaryByProductIdIn(ids)) {
+            found.put(media.getProductId(), media);
+        }
+        Map<String, Media> primary = new LinkedHashMap<>();
+        for (String id : ids) {
+            Media media = found.get(id);
+            if (media != null) {
+                primary.put(id, media);
+            }
+        }
+        return primary;
+    }
+
+    private static Set<String> batchIds(List<String> productIds) {
+        Set<String> ids = new LinkedHashSet<>();
+        if (productIds != null) {
+            for (String id : productIds) {
+                if (id != null && !id.isBlank()) {
+                    ids.add(id.trim());
+                }
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new BadRequestException("At least one product id is required");
+        }
+        if (ids.size() > MAX_BATCH_PRODUCTS) {
+            throw new BadRequestException("At most " + MAX_BATCH_PRODUCTS + " product ids are allowed per request");
+        }
+        return ids;
+    }
+
+    /**
+     * Writes the resized variants of an image. Media deleted in the meantime is
+     * skipped.
+     */
+    public void generateVariants(String mediaId) {
+        mediaRepository.findByIdAndDeletedAtIsNull(mediaId).ifPresent(imageVariantService::generateVariants);
     }
 
     public Media getMediaById(String id) {
-        return mediaRepository.findById(id)
+        return mediaRepository.findByIdAndDeletedAtIsNull(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Media not found with id: " + id));
     }
 
-    @Transactional
+    /**
+     * Deleted media is hidden at once; its file is removed in the background
+     * by {@link MediaReaper}.
+     */
     public void deleteMedia(String id, Authentication authentication) {
         Media media = getMediaById(id);
 
@@ -141,27 +317,17 @@ public class MediaService {
         }
 
         String userEmail = authentication.getName();
-        boolean isAdmin = authentication.getAuthorities().stream()
-                .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
-
-        if (!product.getUser().equals(userEmail) && !isAdmin) {
+        if (!isAdmin(authentication) && !currentUserId(authentication).equals(product.getUserId())) {
             throw new ForbiddenException("You can only delete media for your own products");
         }
 
-        // Delete file from disk
-        try {
-            Path filePath = Paths.get(media.getImagePath());
-            Files.deleteIfExists(filePath);
-        } catch (IOException e) {
-            // Log error but don't fail the transaction
-            System.err.println("Could not delete file: " + media.getImagePath() + " - " + e.getMessage());
-        }
+        mediaRepository.tombstoneById(id, Instant.now());
 
-        // Delete from database
-        mediaRepository.deleteById(id);
+        MediaEvent event = new MediaEvent(MediaEvent.EventType.IMAGE_DELETED, id, media.getProductId(), userEmail);
+        event.setPrimaryMediaId(primaryMediaId(media.getProductId()));
+        mediaEventProducer.sendMediaEvent(event);
     }
 
-    @Transactional
     public void deleteMediaByProductId(String productId, Authentication authentication) {
         // Verify user owns the product via Product Service
         ProductDto product = getProductFromService(productId);
@@ -170,75 +336,68 @@ public class MediaService {
         }
 
         String userEmail = authentication.getName();
-        boolean isAdmin = authentication.getAuthorities().stream()
-                .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
-
-        if (!product.getUser().equals(userEmail) && !isAdmin) {
+        if (!isAdmin(authentication) && !currentUserId(authentication).equals(product.getUserId())) {
             throw new ForbiddenException("You can only delete media for your own products");
         }
 
         List<Media> mediaList = getMediaByProductId(productId);
+        mediaRepository.tombstoneByProductId(productId, Instant.now());
 
-        // Delete files from disk
+        // No image is left, so every event clears the primary image
         for (Media media : mediaList) {
-            try {
-                Path filePath = Paths.get(media.getImagePath());
-                Files.deleteIfExists(filePath);
-            } catch (IOException e) {
-                System.err.println("Could not delete file: " + media.getImagePath() + " - " + e.getMessage());
-            }
+            mediaEventProducer.sendMediaEvent(new MediaEvent(
+                    MediaEvent.EventType.IMAGE_DELETED, media.getId(), productId, userEmail));
         }
-
-        // Delete from database
-        mediaRepository.deleteByProductId(productId);
     }
 
-    // Internal method for service-to-service calls (no authentication required)
-    @Transactional
+    // Internal method for service-to-service calls (no authentication required).
+    // A single update, so product deletions never wait on file I/O
     public void deleteMediaByProductIdInternal(String productId) {
-        List<Media> mediaList = getMediaByProductId(productId);
+        mediaRepository.tombstoneByProductId(productId, Instant.now());
+    }
 
-        // Delete files from disk
-        for (Media media : mediaList) {
-            try {
-                Path filePath = Paths.get(media.getImagePath());
-                Files.deleteIfExists(filePath);
-            } catch (IOException e) {
-                System.err.println("Could not delete file: " + media.getImagePath() + " - " + e.getMessage());
-            }
-        }
+    // The image listings show first, carried on media events for the Product Service
+    private String primaryMediaId(String productId) {
+        return mediaRepository.findFirstByProductIdAndDeletedAtIsNullOrderByIdAsc(productId)
+                .map(Media::getId)
+                .orElse(null);
+    }
 
-        // Delete from database
-        mediaRepository.deleteByProductId(productId);
+    private boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
     }
 
-    private ProductDto getProductFromService(String productId) {
-        try {
-            return webClientBuilder.build()
-                    .get()
-                    .uri("http://product-service/products/{id}", productId)
-                    .retrieve()
-                    .bodyToMono(ProductDto.class)
-                    .block();
-        } catch (Exception e) {
-            return null;
+    // Taken from the token when it carries the id; older tokens fall back to the User Service
+    private String currentUserId(Authentication authentication) {
+        String userId = AuthenticatedUser.userIdOf(authentication);
+        if (userId != null) {
+            return userId;
         }
-    }
 
-    private UserDto getUserFromService(String email) {
-        try {
-            return webClientBuilder.build()
-                    .get()
-                    .uri("http://user-service/users/email/{email}", email)
-                    .retrieve()
-                    .bodyToMono(UserDto.class)
-                    .block();
-        } catch (Exception e) {
-            return null;
+        UserDto currentUser = userDirectoryClient.getUserByEmail(authentication.getName());
+        if (currentUser == null) {
+            throw new IllegalArgumentException("Authenticated user not found");
         }
+        return currentUser.getId();
     }
 
-    private void validateFile(MultipartFile file) {
+    private Mono<ProductDto> fetchProduct(String productId) {
+        return webClientBuilder.build()
+                .get()
+                .uri("http://product-service/products/{id}", productId)
+                .retrieve()
+                .bodyToMono(ProductDto.class)
+                .timeout(remoteCallTimeout)
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    private ProductDto getProductFromService(String productId) {
+        return fetchProduct(productId).block();
+    }
+
+    // The format is taken from the file's magic bytes, so a spoofed content type is rejected
+    private ImageType validateFile(MultipartFile file) {
         if (file.isEmpty()) {
             throw new BadRequestException("File cannot be empty");
         }
@@ -247,22 +406,15 @@ public class MediaService {
             throw new BadRequestException("File size exceeds maximum limit of 2MB");
         }
 
-        String contentType = file.getContentType();
-        boolean isValidType = false;
-        for (String allowedType : ALLOWED_CONTENT_TYPES) {
-            if (allowedType.equals(contentType)) {
-                isValidType = true;
-                break;
-            }
-        }
-
-        if (!isValidType) {
-            throw new BadRequestException("Invalid file type. Only image files (JPEG, PNG, GIF, WebP) are allowed");
-        }
-
         String originalFilename = file.getOriginalFilename();
         if (originalFilename == null || originalFilename.trim().isEmpty()) {
             throw new BadRequestException("Invalid filename");
         }
+
+        try (InputStream input = file.getInputStream()) {
+            return ImageType.detect(input.readNBytes(ImageType.HEADER_LENGTH));
+        } catch (IOException e) {
+            throw new BadRequestException("Could not read file: " + e.getMessage());
+        }
     }
 }
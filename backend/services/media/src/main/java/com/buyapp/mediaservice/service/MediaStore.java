@@ -0,0 +1,66 @@
+package com.buyapp.mediaservice.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Where stored files live. Files are addressed by the key recorded on their
+ * media, avatar or blob document, which is the relative path they were given
+ * by {@link StoragePaths}, so records stay valid whichever store holds them.
+ *
+ * The local store keeps files on this instance's disk. The S3 store keeps
+ * them in a bucket every instance shares, so the service can run more than
+ * one replica.
+ */
+public interface MediaStore {
+
+    /**
+     * Moves a complete file into the store under the key, replacing any file
+     * already there. The source is gone afterwards. Readers never see a
+     * partially written file.
+     */
+    void put(String key, Path source) throws IOException;
+
+    boolean exists(String key);
+
+    /**
+     * Opens a stored file for reading.
+     *
+     * @throws java.nio.file.NoSuchFileException when nothing is stored under the key
+     */
+    Content open(String key) throws IOException;
+
+    /**
+     * Deletes a stored file. Deleting a missing file is not an error.
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * The file on this instance's disk, which can be sent without going
+     * through the JVM, or null when the store is remote.
+     */
+    Path localFile(String key);
+
+    /**
+     * A URL that lets a client download the file directly for the given time,
+     * or null when the store cannot hand out such URLs.
+     *
+     * @param cacheControl Cache-Control the download is served with, or null
+     */
+    URI presignedUrl(String key, Duration ttl, String contentType, String fileName, String cacheControl);
+
+    /**
+     * An open stored file with the metadata needed to serve it.
+     */
+    record Content(InputStream stream, long length, long lastModified) implements Closeable {
+
+        @Override
+        public void close() throws IOException {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.buyapp.mediaservice.service;
+
+import org.springframework.http.MediaTypeFactory;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Files in an S3 bucket, or any store speaking the S3 API such as MinIO,
+ * under their key. Every instance of the service sees the same files.
+ *
+ * Files can be handed out as presigned GET URLs, so clients download them
+ * from the bucket instead of through this service and the gateway.
+ */
+public class S3MediaStore implements MediaStore {
+
+    private static final int NOT_FOUND = 404;
+
+    private final S3Client client;
+    private final S3Presigner presigner;
+    private final String bucket;
+
+    public S3MediaStore(S3Client client, S3Presigner presigner, String bucket) {
+        this.client = client;
+        this.presigner = presigner;
+        this.bucket = bucket;
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        // S3 only shows an object once the whole upload has arrived
+        try {
+            client.putObject(request -> request.bucket(bucket).key(key).contentType(contentType(key)),
+                    RequestBody.fromFile(source));
+        } catch (SdkException e) {
+            throw new IOException("Could not upload " + key + ": " + e.getMessage(), e);
+        }
+        Files.deleteIfExists(source);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        try {
+            client.headObject(request -> request.bucket(bucket).key(key));
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        } catch (S3Exception e) {
+            // HEAD responses have no body, so a missing key may only show as a 404
+            if (e.statusCode() == NOT_FOUND) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public Content open(String key) throws IOException {
+        try {
+            ResponseInputStream<GetObjectResponse> stream = client.getObject(request -> request.bucket(bucket).key(key));
+            GetObjectResponse response = stream.response();
+            return new Content(stream, response.contentLength(), response.lastModified().toEpochMilli());
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (SdkException e) {
+            throw new IOException("Could not read " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            client.deleteObject(request -> request.bucket(bucket).key(key));
+        } catch (SdkException e) {
+            throw new IOException("Could not delete " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Path localFile(String key) {
+        return null;
+    }
+
+    @Override
+    public URI presignedUrl(String key, Duration ttl, String contentType, String fileName, String cacheControl) {
+        try {
+            return presigner.presignGetObject(presign -> presign
+                    .signatureDuration(ttl)
+                    .getObjectRequest(request -> request.bucket(bucket).key(key)
+                            .responseContentType(contentType)
+                            .responseContentDisposition("inline; filename=\"" + fileName + "\"")
+                            .responseCacheControl(cacheControl)))
+                    .url().toURI();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Presigned URL for " + key + " is not a valid URI", e);
+        }
+    }
+
+    private static String contentType(String key) {
+        return MediaTypeFactory.getMediaType(key)
+                .map(Object::toString)
+                .orElse("application/octet-stream");
+    }
+}
@@ -0,0 +1,139 @@
+package com.buyapp.mediaservice.service;
+
+import com.buyapp.mediaservice.repository.AvatarRepository;
+import com.buyapp.mediaservice.repository.BlobRepository;
+import com.buyapp.mediaservice.repository.MediaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Moves files from the old flat upload directories into the fanned-out
+ * layout of {@link StoragePaths}, while the service keeps running.
+ *
+ * Each file is moved first and its records are rewritten after, so a reader
+ * holding the old path in between still finds it through
+ * {@link StoragePaths#locate}. Files are moved by a fixed pool of workers,
+ * reading the directory as a stream so millions of entries are never listed
+ * at once. Running it again picks up whatever is still flat.
+ */
+@Service
+public class StorageMigrationService {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageMigrationService.class);
+
+    // Variants have no records of their own
+    private static final Pattern VARIANT = Pattern.compile(".*_w\\d+\\.[a-z]+$");
+
+    @Autowired
+    private MediaRepository mediaRepository;
+
+    @Autowired
+    private BlobRepository blobRepository;
+
+    @Autowired
+    private AvatarRepository avatarRepository;
+
+    @Value("${media.storage.migration-threads:8}")
+    private int threads = 8;
+
+    private volatile Status status = new Status(false, 0, 0, null, null);
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Starts migrating in the background, unless a migration is already
+     * running.
+     */
+    public synchronized Status start() {
+        if (status.running()) {
+            return status;
+        }
+        status = new Status(true, 0, 0, Instant.now(), null);
+        Thread.ofPlatform().name("storage-migration").daemon().start(
+                () -> migrate(List.of(StoragePaths.IMAGES_DIR, StoragePaths.AVATARS_DIR)));
+        return status;
+    }
+
+    void migrate(List<Path> roots) {
+        AtomicLong moved = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        Instant startedAt = status.startedAt() != null ? status.startedAt() : Instant.now();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        // Bounds the queued moves, so the directory is read no faster than files are moved
+        Semaphore inFlight = new Semaphore(threads * 4);
+
+        try {
+            for (Path root : roots) {
+                if (!Files.isDirectory(root)) {
+                    continue;
+                }
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(root, Files::isRegularFile)) {
+                    for (Path file : files) {
+                        if (file.getFileName().toString().endsWith(".tmp")) {
+                            continue;
+                        }
+                        inFlight.acquire();
+                        workers.execute(() -> {
+                            try {
+                                moveFile(root, file);
+                                moved.incrementAndGet();
+                            } catch (IOException | RuntimeException e) {
+                                failed.incrementAndGet();
+                                log.warn("Could not migrate {}: {}", file, e.getMessage());
+                            } finally {
+                                inFlight.release();
+                            }
+                        });
+                    }
+                }
+            }
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        } catch (IOException e) {
+            log.error("Storage migration stopped: {}", e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            workers.shutdownNow();
+            status = new Status(false, moved.get(), failed.get(), startedAt, Instant.now());
+            log.info("Storage migration finished: {} files moved, {} failed", moved.get(), failed.get());
+        }
+    }
+
+    private void moveFile(Path root, Path file) throws IOException {
+        String fileName = file.getFileName().toString();
+        Path target = StoragePaths.pathFor(root, fileName);
+        Files.createDirectories(target.getParent());
+        Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+
+        if (!VARIANT.matcher(fileName).matches()) {
+            String oldPath = file.toString();
+            String newPath = target.toString();
+            mediaRepository.updateImagePath(oldPath, newPath);
+            blobRepository.updatePath(oldPath, newPath);
+            avatarRepository.updateImagePath(oldPath, newPath);
+        }
+    }
+
+    public record Status(boolean running, long moved, long failed, Instant startedAt, Instant finishedAt) {
+    }
+}
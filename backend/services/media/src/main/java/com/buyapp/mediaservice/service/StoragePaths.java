@@ -0,0 +1,57 @@
+package com.buyapp.mediaservice.service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * On-disk layout of stored files. Files fan out into two levels of
+ * directories named after the first hex characters of their name, which is a
+ * content hash or a UUID, e.g. {@code uploads/images/ab/cd/abcd1234....jpg}.
+ * That keeps every directory small however many files there are.
+ *
+ * Records written before the fan-out hold flat paths. {@link #locate} finds
+ * such a file whether or not it has been migrated yet.
+ */
+public final class StoragePaths {
+
+    public static final Path IMAGES_DIR = Paths.get("uploads", "images");
+    public static final Path AVATARS_DIR = Paths.get("uploads", "avatars");
+    // Chunks of resumable uploads, until they are completed
+    public static final Path SESSIONS_DIR = Paths.get("uploads", "sessions");
+
+    private static final int LEVELS = 2;
+    private static final int LEVEL_WIDTH = 2;
+
+    private StoragePaths() {
+    }
+
+    /**
+     * Where a new file with this name goes under the root.
+     */
+    public static Path pathFor(Path root, String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.length() < LEVELS * LEVEL_WIDTH) {
+            return root.resolve(fileName);
+        }
+        Path directory = root;
+        for (int level = 0; level < LEVELS; level++) {
+            directory = directory.resolve(name.substring(level * LEVEL_WIDTH, (level + 1) * LEVEL_WIDTH));
+        }
+        return directory.resolve(fileName);
+    }
+
+    /**
+     * The file a stored path refers to: the path itself, or its fanned-out
+     * location once a flat file has been migrated.
+     */
+    public static Path locate(String storedPath) {
+        Path path = Paths.get(storedPath);
+        if (Files.exists(path) || path.getParent() == null) {
+            return path;
+        }
+        Path sharded = pathFor(path.getParent(), path.getFileName().toString());
+        return Files.exists(sharded) ? sharded : path;
+    }
+}
@@ -0,0 +1,239 @@
+package com.buyapp.mediaservice.service;
+
+import com.buyapp.common.exception.BadRequestException;
+import com.buyapp.common.exception.ForbiddenException;
+import com.buyapp.common.exception.ResourceNotFoundException;
+import com.buyapp.mediaservice.model.Media;
+import com.buyapp.mediaservice.model.UploadSession;
+import com.buyapp.mediaservice.repository.UploadSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Resumable uploads: a session is created with the total size, chunks are
+ * appended at the offset received so far, and the upload is completed into a
+ * regular media record. A dropped chunk keeps whatever arrived, so the client
+ * asks for the offset and carries on from there.
+ *
+ * Each chunk is put into the {@link MediaStore} as a part and recorded on the
+ * session with an update conditional on its offset, so any instance sharing
+ * the store and database can take the next chunk or complete the upload, and
+ * two chunks for the same offset never both count. Completing joins the parts
+ * into one staging file. Sessions that are not completed within
+ * {@code media.uploads.session-ttl} of their last chunk are removed.
+ */
+@Service
+public class UploadSessionService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadSessionService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private MediaService mediaService;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private MediaStore mediaStore;
+
+    @Value("${media.uploads.max-size:10MB}")
+    private DataSize maxSize;
+
+    @Value("${media.uploads.session-ttl:24h}")
+    private Duration sessionTtl;
+
+    private Path partsDir = StoragePaths.SESSIONS_DIR;
+
+    public Mono<UploadSession> createSession(String productId, String fileName, long size,
+            Authentication authentication) {
+        if (size <= 0) {
+            throw new BadRequestException("Upload size must be positive");
+        }
+        if (size > maxSize.toBytes()) {
+            throw new BadRequestException("File size exceeds maximum limit of " + maxSize.toMegabytes() + "MB");
+        }
+
+        return mediaService.verifyCanUpload(productId, authentication)
+                .then(Mono.fromCallable(() -> {
+                    UploadSession session = new UploadSession();
+                    session.setProductId(productId);
+                    session.setUserEmail(authentication.getName());
+                    session.setFileName(fileName);
+                    session.setSize(size);
+                    session.setExpiresAt(Instant.now().plus(sessionTtl));
+                    return uploadSessionRepository.save(session);
+                }).subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    public UploadSession getSession(String sessionId, Authentication authentication) {
+        return findSession(sessionId, authentication);
+    }
+
+    /**
+     * Appends a chunk that starts at {@code offset}, which has to be the number
+     * of bytes received so far. Returns the session with its new offset.
+     */
+    public UploadSession appendChunk(String sessionId, long offset, InputStream chunk,
+            Authentication authentication) throws IOException {
+        UploadSession session = findSession(sessionId, authentication);
+        if (offset != session.getOffset()) {
+            throw new BadRequestException("Chunk offset " + offset + " does not match the "
+                    + session.getOffset() + " bytes received");
+        }
+        long remaining = session.getSize() - offset;
+
+        Path received = blobStore.createStagingFile();
+        try {
+            long written = 0;
+            IOException cutOff = null;
+            try (OutputStream output = Files.newOutputStream(received)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                // Asking for one byte more than fits tells an oversized chunk apart
+                while ((read = chunk.read(buffer, 0, (int) Math.min(buffer.length, remaining + 1 - written))) > 0) {
+                    output.write(buffer, 0, read);
+                    written += read;
+                }
+            } catch (IOException e) {
+                // Keep what arrived before the transfer broke off
+                cutOff = e;
+            }
+            if (written > remaining) {
+                throw new BadRequestException("Chunk runs past the declared size of " + session.getSize()
+                        + " bytes");
+            }
+            if (written > 0) {
+                addPart(session, offset, written, received);
+            }
+            if (cutOff != null) {
+                throw cutOff;
+            }
+            return session;
+        } finally {
+            Files.deleteIfExists(received);
+        }
+    }
+
+    /**
+     * Turns a fully received upload into a media record. The session ends
+     * either way.
+     */
+    public Mono<Media> complete(String sessionId, Authentication authentication) throws IOException {
+        UploadSession session = findSession(sessionId, authentication);
+        if (session.getOffset() != session.getSize()) {
+            throw new BadRequestException("Upload incomplete: " + session.getOffset() + " of "
+                    + session.getSize() + " bytes received");
+        }
+
+        Path joined = join(session);
+        if (uploadSessionRepository.deleteByIdAndOffset(sessionId, session.getSize()) == 0) {
+            // Completed or cancelled on another instance meanwhile
+            Files.deleteIfExists(joined);
+            throw new ResourceNotFoundException("Upload session not found with id: " + sessionId);
+        }
+
+        ImageType type;
+        try (InputStream input = Files.newInputStream(joined)) {
+            type = ImageType.detect(input.readNBytes(ImageType.HEADER_LENGTH));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(joined);
+            deleteParts(session);
+            throw e;
+        }
+
+        BlobStore.StagedFile staged = blobStore.stage(joined);
+        return mediaService.completeStagedUpload(staged, type, session.getFileName(), session.getProductId(),
+                authentication)
+                .doFinally(signal -> deleteParts(session));
+    }
+
+    public void cancel(String sessionId, Authentication authentication) {
+        abort(findSession(sessionId, authentication));
+    }
+
+    @Scheduled(fixedDelayString = "${media.uploads.cleanup-interval:PT15M}")
+    public void removeExpiredSessions() {
+        for (UploadSession session : uploadSessionRepository.findByExpiresAtBefore(Instant.now())) {
+            log.info("Removing expired upload session {} for product {}", session.getId(), session.getProductId());
+            abort(session);
+        }
+    }
+
+    private UploadSession findSession(String sessionId, Authentication authentication) {
+        UploadSession session = uploadSessionRepository.findById(sessionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Upload session not found with id: " + sessionId));
+        if (!session.getUserEmail().equals(authentication.getName())) {
+            throw new ForbiddenException("You can only use your own upload sessions");
+        }
+        return session;
+    }
+
+    private void abort(UploadSession session) {
+        uploadSessionRepository.delete(session);
+        deleteParts(session);
+    }
+
+    // Stores a received chunk as the session's next part, unless another chunk got there first
+    private void addPart(UploadSession session, long offset, long length, Path received) throws IOException {
+        String part = partsDir.resolve(session.getId() + "-" + offset + "-" + UUID.randomUUID() + ".part").toString();
+        mediaStore.put(part, received);
+        Instant expiresAt = Instant.now().plus(sessionTtl);
+        if (uploadSessionRepository.addPart(session.getId(), offset, offset + length, part, expiresAt) == 0) {
+            deletePart(part);
+            throw new BadRequestException("Chunk offset " + offset + " does not match the bytes received");
+        }
+        session.getParts().add(part);
+        session.setOffset(offset + length);
+        session.setExpiresAt(expiresAt);
+    }
+
+    // The parts in order, in one staging file
+    private Path join(UploadSession session) throws IOException {
+        Path joined = blobStore.createStagingFile();
+        try (OutputStream output = Files.newOutputStream(joined)) {
+            for (String part : session.getParts()) {
+                try (MediaStore.Content content = mediaStore.open(part)) {
+                    content.stream().transferTo(output);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(joined);
+            throw e;
+        }
+        return joined;
+    }
+
+    private void deleteParts(UploadSession session) {
+        session.getParts().forEach(this::deletePart);
+    }
+
+    private void deletePart(String part) {
+        try {
+            mediaStore.delete(part);
+        } catch (IOException e) {
+            log.warn("Could not delete upload part {}: {}", part, e.getMessage());
+        }
+    }
+}
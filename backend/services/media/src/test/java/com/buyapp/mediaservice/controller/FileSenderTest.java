@@ -0,0 +1,191 @@
+package com.buyapp.mediaservice.controller;
+
+import com.buyapp.common.exception.ResourceNotFoundException;
+import com.buyapp.mediaservice.service.MediaStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FileSenderTest {
+
+    @TempDir
+    Path dir;
+
+    private static final String ETAG = "\"84d89877f0d4041efb6bf91a16f0248f2fd573e6af05c19f96bedb9f882f7882\"";
+
+    private final FileSender sender = new FileSender();
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.writeString(dir.resolve("image.png"), "0123456789");
+    }
+
+    @Test
+    void send_writesWholeFileWithStoredContentType() throws IOException {
+        MockHttpServletResponse response = send(new MockHttpServletRequest("GET", "/media/file/1"));
+
+        assertEquals(200, response.getStatus());
+        assertEquals("image/png", response.getContentType());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    void send_servesRequestedRange() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/media/file/1");
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        MockHttpServletResponse response = send(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(4, response.getContentLength());
+        assertEquals("2345", response.getContentAsString());
+    }
+
+    @Test
+    void send_rejectsRangePastTheEnd() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/media/file/1");
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-");
+
+        MockHttpServletResponse response = send(request);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void send_ignoresRangeWhenIfRangeIsStale() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/media/file/1");
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "Thu, 01 Jan 1970 00:00:00 GMT");
+
+        MockHttpServletResponse response = send(request);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    void send_handsLargeFilesToTomcatSendfile() throws IOException {
+        Path large = Files.write(dir.resolve("large.jpg"), new byte[64 * 1024]);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/media/file/1");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=1024-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        sender.send(request, response, large, "image/jpeg", "large.jpg", null);
+
+        assertEquals(large.toRealPath().toString(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(1024L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(64L * 1024, request.getAttribute("org.apache.tomcat.sendfile.end"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void send_throwsNotFoundForMissingFile() {
+        assertThrows(ResourceNotFoundException.class, () -> sender.send(new MockHttpServletRequest(),
+                new MockHttpServletResponse(), dir.resolve("missing.png"), "image/png", "missing.png", null));
+    }
+
+    @Test
+    void parseRange_handlesSuffixOpenAndInvalidRanges() {
+        assertArrayEquals(new long[] { 7, 9 }, FileSender.parseRange("bytes=-3", 10));
+        assertArrayEquals(new long[] { 4, 9 }, FileSender.parseRange("bytes=4-", 10));
+        assertArrayEquals(new long[] { 4, 9 }, FileSender.parseRange("bytes=4-100", 10));
+        assertNull(FileSender.parseRange("bytes=0-1,4-5", 10));
+        assertNull(FileSender.parseRange("items=0-1", 10));
+        assertNull(FileSender.parseRange("bytes=5-2", 10));
+    }
+
+    @Test
+    void send_marksHashedFilesImmutable() throws IOException {
+        MockHttpServletResponse response = send(new MockHttpServletRequest("GET", "/media/file/1"), ETAG);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(ETAG, response.getHeader(HttpHeaders.ETAG));
+        assertEquals("public, max-age=31536000, immutable", response.getHeader(HttpHeaders.CACHE_CONTROL));
+    }
+
+    @Test
+    void send_answersMatchingIfNoneMatchWithNotModified() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/media/file/1");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+
+        MockHttpServletResponse response = send(request, ETAG);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void send_servesRangeWhenIfRangeMatchesETag() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/media/file/1");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+        request.addHeader(HttpHeaders.IF_RANGE, ETAG);
+
+        assertEquals(206, send(request, ETAG).getStatus());
+    }
+
+    @Test
+    void sendStored_redirectsToPresignedUrlWhenEnabled() throws IOException {
+        MediaStore store = mock(MediaStore.class);
+        URI url = URI.create("http://minio:9000/media/uploads/images/ab/cd/abcd.png?X-Amz-Signature=x");
+        when(store.presignedUrl("uploads/images/ab/cd/abcd.png", Duration.ofMinutes(5), "image/png", "image.png",
+                "public, max-age=31536000, immutable")).thenReturn(url);
+        ReflectionTestUtils.setField(sender, "mediaStore", store);
+        ReflectionTestUtils.setField(sender, "presignedUrls", true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        sender.sendStored(new MockHttpServletRequest("GET", "/media/file/1"), response,
+                "uploads/images/ab/cd/abcd.png", "image/png", "image.png", ETAG);
+
+        assertEquals(302, response.getStatus());
+        assertEquals(url.toString(), response.getHeader(HttpHeaders.LOCATION));
+        assertEquals("private, max-age=150", response.getHeader(HttpHeaders.CACHE_CONTROL));
+        verify(store, never()).open(any());
+    }
+
+    @Test
+    void sendStored_streamsFromRemoteStoreWithoutRedirect() throws IOException {
+        MediaStore store = mock(MediaStore.class);
+        when(store.open("uploads/images/ab/cd/abcd.png")).thenReturn(new MediaStore.Content(
+                new ByteArrayInputStream("0123456789".getBytes(StandardCharsets.UTF_8)), 10, 0));
+        ReflectionTestUtils.setField(sender, "mediaStore", store);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        sender.sendStored(new MockHttpServletRequest("GET", "/media/file/1"), response,
+                "uploads/images/ab/cd/abcd.png", "image/png", "image.png", ETAG);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("none", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals(ETAG, response.getHeader(HttpHeaders.ETAG));
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request) throws IOException {
+        return send(request, null);
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request, String etag) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        sender.send(request, response, file, "image/png", "image.png", etag);
+        return response;
+    }
+}
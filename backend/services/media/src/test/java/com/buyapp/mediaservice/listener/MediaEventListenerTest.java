@@ -0,0 +1,50 @@
+package com.buyapp.mediaservice.listener;
+
+import com.buyapp.common.event.MediaEvent;
+import com.buyapp.mediaservice.service.MediaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MediaEventListenerTest {
+
+    @Mock
+    private MediaService mediaService;
+
+    private MediaEventListener listener;
+
+    @BeforeEach
+    void setUp() {
+        listener = new MediaEventListener(mediaService);
+    }
+
+    @Test
+    void whenImageUploaded_thenGeneratesVariants() {
+        listener.handleMediaEvent(new MediaEvent(MediaEvent.EventType.IMAGE_UPLOADED,
+                "media-1", "prod-1", "photo.png", "image/png", 100L, "seller@example.com"));
+
+        verify(mediaService).generateVariants("media-1");
+    }
+
+    @Test
+    void whenImageDeleted_thenDoesNothing() {
+        listener.handleMediaEvent(new MediaEvent(MediaEvent.EventType.IMAGE_DELETED,
+                "media-1", "prod-1", "seller@example.com"));
+
+        verifyNoInteractions(mediaService);
+    }
+
+    @Test
+    void whenGenerationFails_thenErrorIsSwallowed() {
+        doThrow(new RuntimeException("disk full")).when(mediaService).generateVariants("media-1");
+
+        assertDoesNotThrow(() -> listener.handleMediaEvent(new MediaEvent(MediaEvent.EventType.IMAGE_UPLOADED,
+                "media-1", "prod-1", "photo.png", "image/png", 100L, "seller@example.com")));
+    }
+}
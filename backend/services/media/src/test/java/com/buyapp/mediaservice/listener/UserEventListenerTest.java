@@ -0,0 +1,38 @@
+package com.buyapp.mediaservice.listener;
+
+import com.buyapp.common.client.UserDirectoryClient;
+import com.buyapp.common.event.UserEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserEventListenerTest {
+
+    @Mock
+    private UserDirectoryClient userDirectoryClient;
+
+    private UserEventListener listener;
+
+    @BeforeEach
+    void setUp() {
+        listener = new UserEventListener(userDirectoryClient);
+    }
+
+    @Test
+    void whenUserUpdated_thenInvalidatesCachedUser() {
+        // Arrange
+        UserEvent event = new UserEvent(UserEvent.EventType.USER_UPDATED, "seller-123",
+                "seller@example.com", "seller", "Seller", null);
+
+        // Act
+        listener.handleUserEvent(event);
+
+        // Assert
+        verify(userDirectoryClient, times(1)).invalidate("seller-123", "seller@example.com");
+    }
+}
@@ -0,0 +1,118 @@
+package com.buyapp.mediaservice.service;
+
+import com.buyapp.common.client.UserDirectoryClient;
+import com.buyapp.common.dto.UserDto;
+import com.buyapp.mediaservice.model.Avatar;
+import com.buyapp.mediaservice.repository.AvatarRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AvatarServiceTest {
+
+    private static final byte[] PNG_HEADER = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13 };
+
+    @Mock
+    private AvatarRepository avatarRepository;
+
+    @Mock
+    private UserDirectoryClient userDirectoryClient;
+
+    @Mock
+    private MediaStore mediaStore;
+
+    @InjectMocks
+    private AvatarService avatarService;
+
+    private final Authentication authentication = new TestingAuthenticationToken("seller@example.com", null);
+    private final AtomicInteger userServiceCalls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        UserDto seller = new UserDto();
+        seller.setId("u1");
+        seller.setRole("seller");
+        when(userDirectoryClient.getUserByEmail("seller@example.com")).thenReturn(seller);
+        ReflectionTestUtils.setField(avatarService, "remoteCallTimeout", Duration.ofSeconds(1));
+    }
+
+    @Test
+    void uploadAvatar_keepsCurrentAvatarWhenUserServiceCannotBeUpdated() throws Exception {
+        userServiceResponds(HttpStatus.SERVICE_UNAVAILABLE);
+        Avatar current = new Avatar("a0", "uploads/avatars/old.png", "u1", "old.png", "image/png", 10L);
+        when(avatarRepository.findByUserId("u1")).thenReturn(Optional.of(current));
+
+        assertThrows(IllegalStateException.class, () -> avatarService.uploadAvatar(png(), authentication));
+
+        ArgumentCaptor<String> stored = ArgumentCaptor.forClass(String.class);
+        verify(mediaStore).put(stored.capture(), any(Path.class));
+        verify(mediaStore).delete(stored.getValue());
+        verify(mediaStore, never()).delete(current.getImagePath());
+        verify(avatarRepository, never()).delete(any());
+        verify(avatarRepository, never()).save(any());
+        assertEquals(3, userServiceCalls.get());
+    }
+
+    @Test
+    void uploadAvatar_replacesCurrentAvatarOnceUserServicePointsAtTheNewOne() throws Exception {
+        userServiceResponds(HttpStatus.OK);
+        Avatar current = new Avatar("a0", "uploads/avatars/old.png", "u1", "old.png", "image/png", 10L);
+        when(avatarRepository.findByUserId("u1")).thenReturn(Optional.of(current));
+        when(avatarRepository.save(any(Avatar.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Avatar saved = avatarService.uploadAvatar(png(), authentication);
+
+        assertNotNull(saved.getId());
+        assertEquals("u1", saved.getUserId());
+        verify(mediaStore).delete(current.getImagePath());
+        verify(avatarRepository).delete(current);
+        assertEquals(1, userServiceCalls.get());
+    }
+
+    @Test
+    void deleteAvatar_leavesAvatarInPlaceWhenUserServiceCannotBeUpdated() throws Exception {
+        userServiceResponds(HttpStatus.SERVICE_UNAVAILABLE);
+        Avatar current = new Avatar("a0", "uploads/avatars/old.png", "u1", "old.png", "image/png", 10L);
+        when(avatarRepository.findByUserId("u1")).thenReturn(Optional.of(current));
+
+        assertThrows(IllegalStateException.class, () -> avatarService.deleteAvatar(authentication));
+
+        verify(mediaStore, never()).delete(anyString());
+        verify(avatarRepository, never()).delete(any());
+    }
+
+    private void userServiceResponds(HttpStatus status) {
+        WebClient.Builder builder = WebClient.builder().exchangeFunction(request -> {
+            userServiceCalls.incrementAndGet();
+            return Mono.just(ClientResponse.create(status).build());
+        });
+        ReflectionTestUtils.setField(avatarService, "webClientBuilder", builder);
+    }
+
+    private static MockMultipartFile png() {
+        return new MockMultipartFile("file", "avatar.png", "image/png", PNG_HEADER);
+    }
+}
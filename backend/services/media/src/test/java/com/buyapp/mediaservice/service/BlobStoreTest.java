@@ -0,0 +1,242 @@
+package com.buyapp.mediaservice.service;
+
+import com.buyapp.common.exception.BadRequestException;
+import com.buyapp.mediaservice.model.Blob;
+import com.buyapp.mediaservice.repository.BlobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BlobStoreTest {
+
+    private static final String HASH = "84d89877f0d4041efb6bf91a16f0248f2fd573e6af05c19f96bedb9f882f7882";
+    private static final ByteArrayResource CONTENT =
+            new ByteArrayResource("0123456789".getBytes(StandardCharsets.UTF_8));
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    private BlobRepository blobRepository;
+
+    private BlobStore blobStore;
+
+    @BeforeEach
+    void setUp() {
+        blobStore = new BlobStore(blobRepository, new LocalMediaStore(), dir);
+    }
+
+    @Test
+    void store_writesNewContentsUnderTheirHash() throws IOException {
+        Path expected = dir.resolve("84").resolve("d8").resolve(HASH + ".jpg");
+        when(blobRepository.addReference(eq(HASH), eq(expected.toString()), eq(10L), any(Instant.class)))
+                .thenAnswer(BlobStoreTest::created);
+
+        Blob blob = blobStore.store(CONTENT, ".JPG");
+
+        assertEquals(HASH, blob.getId());
+        assertEquals(expected.toString(), blob.getPath());
+        assertEquals(1, blob.getRefCount());
+        assertEquals("0123456789", Files.readString(expected));
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void store_onlyCountsKnownContents() throws IOException {
+        Path existing = Files.writeString(dir.resolve(HASH + ".jpg"), "0123456789");
+        when(blobRepository.addReference(eq(HASH), any(), eq(10L), any(Instant.class)))
+                .thenReturn(new Blob(HASH, existing.toString(), 10L, 2));
+        long modified = Files.getLastModifiedTime(existing).toMillis();
+
+        Blob blob = blobStore.store(CONTENT, ".jpg");
+
+        assertEquals(existing.toString(), blob.getPath());
+        assertEquals(modified, Files.getLastModifiedTime(existing).toMillis());
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void commit_movesStagedUploadIntoPlace() throws IOException {
+        when(blobRepository.addReference(eq(HASH), any(), eq(10L), any(Instant.class)))
+                .thenAnswer(BlobStoreTest::created);
+
+        BlobStore.StagedFile staged = blobStore.stage(CONTENT.getInputStream(), 1024);
+        Blob blob = blobStore.commit(staged, ".png");
+
+        assertEquals(HASH, staged.hash());
+        assertEquals(10, staged.size());
+        assertFalse(Files.exists(staged.path()));
+        assertEquals("0123456789", Files.readString(Path.of(blob.getPath())));
+    }
+
+    @Test
+    void commit_dropsStagedCopyOfKnownContents() throws IOException {
+        Path existing = Files.writeString(dir.resolve(HASH + ".png"), "0123456789");
+        when(blobRepository.addReference(eq(HASH), any(), eq(10L), any(Instant.class)))
+                .thenReturn(new Blob(HASH, existing.toString(), 10L, 2));
+
+        BlobStore.StagedFile staged = blobStore.stage(CONTENT.getInputStream(), 1024);
+        Blob blob = blobStore.commit(staged, ".png");
+
+        assertEquals(existing.toString(), blob.getPath());
+        assertFalse(Files.exists(staged.path()));
+        verify(blobRepository, never()).save(any());
+    }
+
+    @Test
+    void commit_writesFileAgainWhenContentsAreRevived() throws IOException {
+        // Known record whose last reference was dropped, so its file may already be deleted
+        Path path = dir.resolve(HASH + ".png");
+        when(blobRepository.addReference(eq(HASH), any(), eq(10L), any(Instant.class)))
+                .thenReturn(new Blob(HASH, path.toString(), 10L, 1));
+
+        blobStore.commit(blobStore.stage(CONTENT.getInputStream(), 1024), ".png");
+
+        assertEquals("0123456789", Files.readString(path));
+    }
+
+    @Test
+    void commit_waitsWhileAnotherInstanceDeletesTheSameContents() throws IOException {
+        when(blobRepository.addReference(eq(HASH), any(), eq(10L), any(Instant.class)))
+                .thenThrow(new DuplicateKeyException("E11000"))
+                .thenAnswer(BlobStoreTest::created);
+
+        Blob blob = blobStore.commit(blobStore.stage(CONTENT.getInputStream(), 1024), ".png");
+
+        assertEquals(1, blob.getRefCount());
+        verify(blobRepository, times(2)).addReference(eq(HASH), any(), eq(10L), any(Instant.class));
+    }
+
+    @Test
+    void commit_dropsTheReferenceWhenTheFileCannotBeStored() throws IOException {
+        MediaStore failingStore = mock(MediaStore.class);
+        doThrow(new IOException("bucket unavailable")).when(failingStore).put(any(), any());
+        BlobStore store = new BlobStore(blobRepository, failingStore, dir);
+        when(blobRepository.addReference(eq(HASH), any(), eq(10L), any(Instant.class)))
+                .thenAnswer(BlobStoreTest::created);
+
+        BlobStore.StagedFile staged = store.stage(CONTENT.getInputStream(), 1024);
+        assertThrows(IOException.class, () -> store.commit(staged, ".png"));
+
+        verify(blobRepository).dropReference(eq(HASH), endsWith(HASH + ".png"));
+    }
+
+    @Test
+    void stage_deletesPartialFileWhenTooLarge() throws IOException {
+        assertThrows(BadRequestException.class, () -> blobStore.stage(CONTENT.getInputStream(), 5));
+
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void release_keepsFileWhileStillReferenced() throws IOException {
+        Path path = Files.writeString(dir.resolve(HASH + ".jpg"), "0123456789");
+        when(blobRepository.findById(HASH)).thenReturn(Optional.of(new Blob(HASH, path.toString(), 10L, 2)));
+        when(blobRepository.dropReference(HASH, path.toString())).thenReturn(new Blob(HASH, path.toString(), 10L, 1));
+
+        assertFalse(blobStore.release(HASH, path.toString()));
+
+        assertTrue(Files.exists(path));
+        verify(blobRepository, never()).claimForDeletion(any(), any(), any(), any());
+    }
+
+    @Test
+    void release_deletesFileWithLastReference() throws IOException {
+        Path path = Files.writeString(dir.resolve(HASH + ".jpg"), "0123456789");
+        Blob claimed = new Blob(HASH, path.toString(), 10L, 0);
+        claimed.setDeletingSince(Instant.parse("2026-01-01T00:00:00Z"));
+        when(blobRepository.findById(HASH)).thenReturn(
+                Optional.of(new Blob(HASH, path.toString(), 10L, 1)),
+                Optional.of(new Blob(HASH, path.toString(), 10L, 0)));
+        when(blobRepository.dropReference(HASH, path.toString())).thenReturn(new Blob(HASH, path.toString(), 10L, 0));
+        when(blobRepository.claimForDeletion(eq(HASH), eq(path.toString()), any(), any())).thenReturn(claimed);
+        when(blobRepository.deleteClaimed(HASH, claimed.getDeletingSince())).thenReturn(true);
+
+        assertTrue(blobStore.release(HASH, path.toString()));
+
+        assertFalse(Files.exists(path));
+    }
+
+    @Test
+    void deleteUnreferenced_keepsFileStoredAgainSinceItsLastReferenceWasDropped() throws IOException {
+        Path path = Files.writeString(dir.resolve(HASH + ".jpg"), "0123456789");
+        when(blobRepository.findById(HASH)).thenReturn(Optional.of(new Blob(HASH, path.toString(), 10L, 1)));
+
+        assertFalse(blobStore.deleteUnreferenced(HASH, path.toString()));
+
+        assertTrue(Files.exists(path));
+    }
+
+    @Test
+    void deleteUnreferenced_keepsFileStoredAgainWhileClaiming() throws IOException {
+        Path path = Files.writeString(dir.resolve(HASH + ".jpg"), "0123456789");
+        when(blobRepository.findById(HASH)).thenReturn(
+                Optional.of(new Blob(HASH, path.toString(), 10L, 0)),
+                Optional.of(new Blob(HASH, path.toString(), 10L, 1)));
+
+        assertFalse(blobStore.deleteUnreferenced(HASH, path.toString()));
+
+        assertTrue(Files.exists(path));
+    }
+
+    @Test
+    void deleteUnreferenced_retriesLaterWhileAnotherInstanceDeletesTheFile() throws IOException {
+        Path path = Files.writeString(dir.resolve(HASH + ".jpg"), "0123456789");
+        when(blobRepository.findById(HASH)).thenReturn(Optional.of(new Blob(HASH, path.toString(), 10L, 0)));
+
+        assertThrows(IOException.class, () -> blobStore.deleteUnreferenced(HASH, path.toString()));
+
+        assertTrue(Files.exists(path));
+    }
+
+    @Test
+    void deleteUnreferenced_leavesContentsStoredUnderANewRecordAlone() throws IOException {
+        // The record went with the file; a file under the hash name now belongs to a later upload
+        Path path = Files.writeString(dir.resolve(HASH + ".jpg"), "0123456789");
+        when(blobRepository.findById(HASH)).thenReturn(Optional.empty());
+
+        assertTrue(blobStore.deleteUnreferenced(HASH, path.toString()));
+
+        assertTrue(Files.exists(path));
+    }
+
+    @Test
+    void release_deletesUntrackedFilesDirectly() throws IOException {
+        Path legacy = Files.writeString(dir.resolve("legacy.jpg"), "0123456789");
+
+        assertTrue(blobStore.release(null, legacy.toString()));
+
+        assertFalse(Files.exists(legacy));
+        verifyNoInteractions(blobRepository);
+    }
+
+    private static Blob created(InvocationOnMock invocation) {
+        return new Blob(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2), 1);
+    }
+}
@@ -0,0 +1,29 @@
+package com.buyapp.mediaservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ContentHashTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void copy_writesFileAndReturnsItsSha256() throws IOException {
+        Path target = dir.resolve("file.txt");
+        byte[] content = "0123456789".getBytes(StandardCharsets.UTF_8);
+
+        String hash = ContentHash.copy(new ByteArrayInputStream(content), target);
+
+        assertEquals("84d89877f0d4041efb6bf91a16f0248f2fd573e6af05c19f96bedb9f882f7882", hash);
+        assertEquals("0123456789", Files.readString(target));
+    }
+}
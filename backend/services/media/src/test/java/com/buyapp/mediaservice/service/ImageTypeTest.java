@@ -0,0 +1,28 @@
+package com.buyapp.mediaservice.service;
+
+import com.buyapp.common.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageTypeTest {
+
+    @Test
+    void detect_recognizesFormatsByMagicBytes() {
+        assertEquals(ImageType.JPEG, ImageType.detect(new byte[] { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0 }));
+        assertEquals(ImageType.PNG, ImageType.detect(new byte[] { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' }));
+        assertEquals(ImageType.GIF, ImageType.detect("GIF89a".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(ImageType.WEBP, ImageType.detect("RIFF\0\0\0\0WEBP".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void detect_rejectsOtherContent() {
+        assertThrows(BadRequestException.class,
+                () -> ImageType.detect("<html><body>".getBytes(StandardCharsets.US_ASCII)));
+        assertThrows(BadRequestException.class,
+                () -> ImageType.detect("RIFF\0\0\0\0WAVE".getBytes(StandardCharsets.US_ASCII)));
+        assertThrows(BadRequestException.class, () -> ImageType.detect(new byte[0]));
+    }
+}
@@ -0,0 +1,145 @@
+package com.buyapp.mediaservice.service;
+
+import com.buyapp.common.exception.BadRequestException;
+import com.buyapp.mediaservice.model.Media;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageVariantServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private ImageVariantService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ImageVariantService(new LocalMediaStore(), uploadDir, 40_000_000);
+    }
+
+    @Test
+    void generateVariants_writesEveryVariantNarrowerThanTheOriginal() throws IOException {
+        Media media = image("photo.png", 1000, 500, "png");
+
+        service.generateVariants(media);
+
+        BufferedImage thumb = ImageIO.read(uploadDir.resolve("photo_w200.png").toFile());
+        assertEquals(200, thumb.getWidth());
+        assertEquals(100, thumb.getHeight());
+        assertTrue(Files.exists(uploadDir.resolve("photo_w800.png")));
+        // Never upscaled
+        assertFalse(Files.exists(uploadDir.resolve("photo_w1200.png")));
+    }
+
+    @Test
+    void resolve_generatesMissingVariantOnDemand() throws IOException {
+        Media media = image("photo.jpg", 600, 600, "jpg");
+
+        String served = service.resolve(media, ImageVariant.SMALL);
+
+        assertEquals(uploadDir.resolve("photo_w400.jpg").toString(), served);
+        assertEquals(400, ImageIO.read(Path.of(served).toFile()).getWidth());
+    }
+
+    @Test
+    void resolve_servesOriginalWhenNarrowerThanVariant() throws IOException {
+        Media media = image("small.png", 150, 100, "png");
+
+        assertEquals(uploadDir.resolve("small.png").toString(), service.resolve(media, ImageVariant.THUMB));
+        assertFalse(Files.exists(uploadDir.resolve("small_w200.png")));
+    }
+
+    @Test
+    void resolve_servesOriginalWhenFormatIsNotDecodable() throws IOException {
+        Path original = uploadDir.resolve("photo.webp");
+        Files.write(original, new byte[] { 'R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'E', 'B', 'P' });
+        Media media = new Media();
+        media.setImagePath(original.toString());
+
+        assertEquals(original.toString(), service.resolve(media, ImageVariant.THUMB));
+    }
+
+    @Test
+    void resolve_servesOriginalWithoutDecodingWhenHeaderDeclaresTooManyPixels() throws IOException {
+        // A few hundred bytes on disk, but 30000x30000 pixels once decoded
+        Media media = image("bomb.png", 30, 30, "png");
+        declareSize(Path.of(media.getImagePath()), 30_000, 30_000);
+
+        assertEquals(media.getImagePath(), service.resolve(media, ImageVariant.THUMB));
+        service.generateVariants(media);
+
+        try (var files = Files.list(uploadDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void generateVariants_decodesLargeOriginalSubsampled() throws IOException {
+        Media media = image("wide.jpg", 4000, 2000, "jpg");
+
+        new ImageVariantService(new LocalMediaStore(), uploadDir, 8_000_000).generateVariants(media);
+
+        BufferedImage thumb = ImageIO.read(uploadDir.resolve("wide_w200.jpg").toFile());
+        assertEquals(200, thumb.getWidth());
+        assertEquals(100, thumb.getHeight());
+        assertEquals(1200, ImageIO.read(uploadDir.resolve("wide_w1200.jpg").toFile()).getWidth());
+    }
+
+    @Test
+    void deleteVariants_removesGeneratedFiles() throws IOException {
+        Media media = image("photo.png", 1000, 500, "png");
+        service.generateVariants(media);
+
+        service.deleteVariants(media);
+
+        try (var files = Files.list(uploadDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void select_picksSmallestVariantAtLeastAsWide() {
+        assertEquals(ImageVariant.THUMB, ImageVariant.select(120, null));
+        assertEquals(ImageVariant.SMALL, ImageVariant.select(201, null));
+        assertEquals(ImageVariant.MEDIUM, ImageVariant.select(null, "medium"));
+        assertNull(ImageVariant.select(2000, null));
+        assertNull(ImageVariant.select(null, null));
+    }
+
+    @Test
+    void select_rejectsInvalidRequests() {
+        assertThrows(BadRequestException.class, () -> ImageVariant.select(0, null));
+        assertThrows(BadRequestException.class, () -> ImageVariant.select(null, "huge"));
+        assertThrows(BadRequestException.class, () -> ImageVariant.select(200, "thumb"));
+    }
+
+    // Rewrites the dimensions in a PNG's IHDR chunk, fixing up its CRC
+    private static void declareSize(Path png, int width, int height) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(png));
+        bytes.putInt(16, width).putInt(20, height);
+        CRC32 crc = new CRC32();
+        crc.update(bytes.array(), 12, 17);
+        bytes.putInt(29, (int) crc.getValue());
+        Files.write(png, bytes.array());
+    }
+
+    private Media image(String fileName, int width, int height, String format) throws IOException {
+        Path path = uploadDir.resolve(fileName);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        ImageIO.write(image, format, path.toFile());
+        Media media = new Media();
+        media.setImagePath(path.toString());
+        return media;
+    }
+}
@@ -0,0 +1,58 @@
+package com.buyapp.mediaservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalMediaStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private final LocalMediaStore store = new LocalMediaStore();
+
+    @Test
+    void put_movesSourceIntoPlaceReplacingExistingFile() throws IOException {
+        Path target = dir.resolve("ab").resolve("cd").resolve("abcd.png");
+        Files.createDirectories(target.getParent());
+        Files.writeString(target, "old");
+        Path source = Files.writeString(dir.resolve("upload.tmp"), "0123456789");
+
+        store.put(target.toString(), source);
+
+        assertFalse(Files.exists(source));
+        assertEquals("0123456789", Files.readString(target));
+    }
+
+    @Test
+    void open_findsFlatKeyAfterMigration() throws IOException {
+        Path sharded = dir.resolve("ab").resolve("cd").resolve("abcd.png");
+        Files.createDirectories(sharded.getParent());
+        Files.writeString(sharded, "0123456789");
+        String flatKey = dir.resolve("abcd.png").toString();
+
+        assertTrue(store.exists(flatKey));
+        assertEquals(sharded, store.localFile(flatKey));
+        try (MediaStore.Content content = store.open(flatKey)) {
+            assertEquals(10, content.length());
+            assertEquals("0123456789", new String(content.stream().readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void delete_toleratesMissingFile() throws IOException {
+        String key = dir.resolve("missing.png").toString();
+
+        store.delete(key);
+
+        assertFalse(store.exists(key));
+        assertThrows(NoSuchFileException.class, () -> store.open(key));
+    }
+}
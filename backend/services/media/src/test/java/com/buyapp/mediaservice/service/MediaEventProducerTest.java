@@ -47,6 +47,21 @@ class MediaEventProducerTest {
         verify(kafkaTemplate).send(nullable(String.class), eq("m-1"), eq(event));
     }
 
+    @Test
+    void keysEventsByProductWhenPresent() {
+        CompletableFuture<SendResult<String, MediaEvent>> future = CompletableFuture.completedFuture(null);
+        when(kafkaTemplate.send(nullable(String.class), anyString(), any(MediaEvent.class)))
+                .thenReturn(future);
+
+        MediaEvent event = new MediaEvent(IMAGE_DELETED, "m-3", "p-1", "seller@example.com");
+        event.setPrimaryMediaId("m-4");
+
+        producer.sendMediaEvent(event);
+
+        // A product's image events share a partition, so they are consumed in order
+        verify(kafkaTemplate).send(nullable(String.class), eq("p-1"), eq(event));
+    }
+
     @Test
     void logsErrorWhenKafkaSendFails() {
         // Arrange: mock kafkaTemplate to return a failed future
@@ -0,0 +1,250 @@
+package com.buyapp.mediaservice.service;
+
+import com.buyapp.mediaservice.model.Media;
+import com.buyapp.mediaservice.repository.BlobRepository;
+import com.buyapp.mediaservice.repository.MediaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MediaReaperTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Duration LEASE = Duration.ofMinutes(5);
+
+    @Mock
+    private MediaRepository mediaRepository;
+
+    @Mock
+    private BlobStore blobStore;
+
+    @Mock
+    private ImageVariantService imageVariantService;
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MediaReaper reaper;
+    private MediaReaper otherReaper;
+
+    @BeforeEach
+    void setUp() {
+        reaper = newReaper();
+        // Another instance sharing the same database
+        otherReaper = newReaper();
+    }
+
+    @AfterEach
+    void tearDown() {
+        reaper.shutdown();
+        otherReaper.shutdown();
+    }
+
+    @Test
+    void reap_deletesOrphanedFileVariantsAndRecord() throws IOException {
+        Media media = tombstone("m1");
+        when(mediaRepository.findByReapAfterLessThanEqualOrderByReapAfterAsc(eq(NOW), any())).thenReturn(List.of(media));
+        when(mediaRepository.claimForReaping("m1", NOW.minusSeconds(60), NOW.plus(LEASE))).thenReturn(1L);
+        when(mediaRepository.markReferenceReleased("m1")).thenReturn(1L);
+        when(blobStore.dropReference("hash-m1", "uploads/images/m1.jpg")).thenReturn(true);
+        when(blobStore.deleteUnreferenced("hash-m1", "uploads/images/m1.jpg")).thenReturn(true);
+
+        reaper.reap(NOW);
+
+        verify(mediaRepository).markFileOrphaned("m1");
+        verify(imageVariantService).deleteVariants(media);
+        verify(mediaRepository).delete(media);
+        assertEquals(1.0, meterRegistry.get("media.reaper.reaped").counter().count());
+    }
+
+    @Test
+    void reap_keepsFileStillSharedByOtherMedia() throws IOException {
+        Media media = tombstone("m1");
+        when(mediaRepository.findByReapAfterLessThanEqualOrderByReapAfterAsc(eq(NOW), any())).thenReturn(List.of(media));
+        when(mediaRepository.claimForReaping(eq("m1"), any(), any())).thenReturn(1L);
+        when(mediaRepository.markReferenceReleased("m1")).thenReturn(1L);
+        when(blobStore.dropReference("hash-m1", "uploads/images/m1.jpg")).thenReturn(false);
+
+        reaper.reap(NOW);
+
+        verify(blobStore, never()).deleteUnreferenced(any(), any());
+        verifyNoInteractions(imageVariantService);
+        verify(mediaRepository).delete(media);
+    }
+
+    @Test
+    void reap_retriesFailedDeleteLaterWithoutDroppingTheReferenceAgain() throws IOException {
+        Media media = tombstone("m1");
+        when(mediaRepository.findByReapAfterLessThanEqualOrderByReapAfterAsc(eq(NOW), any())).thenReturn(List.of(media));
+        when(mediaRepository.claimForReaping(eq("m1"), any(), any())).thenReturn(1L);
+        when(mediaRepository.markReferenceReleased("m1")).thenReturn(1L);
+        when(blobStore.dropReference("hash-m1", "uploads/images/m1.jpg")).thenReturn(true);
+        when(blobStore.deleteUnreferenced("hash-m1", "uploads/images/m1.jpg"))
+                .thenThrow(new IOException("bucket unavailable"))
+                .thenReturn(true);
+
+        reaper.reap(NOW);
+
+        assertTrue(media.isReferenceReleased());
+        assertEquals(1, media.getReapAttempts());
+        assertEquals(NOW.plusSeconds(30), media.getReapAfter());
+        verify(mediaRepository).rescheduleReaping("m1", NOW.plus(LEASE), NOW.plusSeconds(30), 1);
+        verify(mediaRepository, never()).delete(any());
+        assertEquals(1.0, meterRegistry.get("media.reaper.failures").counter().count());
+
+        reaper.reap(NOW);
+
+        verify(blobStore, times(1)).dropReference(any(), any());
+        verify(mediaRepository, times(1)).markReferenceReleased("m1");
+        verify(mediaRepository).delete(media);
+    }
+
+    @Test
+    void reap_twoReapersOnTheSameTombstoneReapItOnce() throws Exception {
+        // Each reaper reads its own copy of the tombstone; the claim is a compare-and-set on reapAfter
+        Object lock = new Object();
+        Instant[] reapAfter = { NOW.minusSeconds(60) };
+        AtomicBoolean released = new AtomicBoolean();
+        when(mediaRepository.findByReapAfterLessThanEqualOrderByReapAfterAsc(eq(NOW), any()))
+                .thenAnswer(invocation -> List.of(tombstone("m1")));
+        when(mediaRepository.claimForReaping(eq("m1"), any(), any())).thenAnswer(invocation -> {
+            synchronized (lock) {
+                if (!reapAfter[0].equals(invocation.getArgument(1))) {
+                    return 0L;
+                }
+                reapAfter[0] = invocation.getArgument(2);
+                return 1L;
+            }
+        });
+        lenient().when(mediaRepository.markReferenceReleased("m1"))
+                .thenAnswer(invocation -> released.compareAndSet(false, true) ? 1L : 0L);
+        when(blobStore.dropReference("hash-m1", "uploads/images/m1.jpg")).thenReturn(true);
+        when(blobStore.deleteUnreferenced("hash-m1", "uploads/images/m1.jpg")).thenReturn(true);
+
+        CompletableFuture.allOf(
+                CompletableFuture.runAsync(() -> reaper.reap(NOW)),
+                CompletableFuture.runAsync(() -> otherReaper.reap(NOW))).get(10, TimeUnit.SECONDS);
+
+        verify(mediaRepository, times(2)).claimForReaping(eq("m1"), any(), any());
+        verify(blobStore, times(1)).dropReference(any(), any());
+        verify(imageVariantService, times(1)).deleteVariants(any());
+        verify(mediaRepository, times(1)).delete(any(Media.class));
+    }
+
+    @Test
+    void reap_afterTheLeaseRunsOutDoesNotDropTheReferenceAgain() throws IOException {
+        // The first reaper stalls past its lease and the second one takes the tombstone over
+        Media stalled = tombstone("m1");
+        Media takenOver = tombstone("m1");
+        when(mediaRepository.findByReapAfterLessThanEqualOrderByReapAfterAsc(eq(NOW), any())).thenReturn(List.of(stalled));
+        when(mediaRepository.findByReapAfterLessThanEqualOrderByReapAfterAsc(eq(NOW.plus(LEASE)), any()))
+                .thenReturn(List.of(takenOver));
+        when(mediaRepository.claimForReaping(eq("m1"), any(), any())).thenReturn(1L);
+        when(mediaRepository.markReferenceReleased("m1")).thenReturn(1L, 0L);
+        when(blobStore.dropReference("hash-m1", "uploads/images/m1.jpg")).thenReturn(true);
+        when(blobStore.deleteUnreferenced("hash-m1", "uploads/images/m1.jpg"))
+                .thenThrow(new IOException("bucket unavailable"))
+                .thenReturn(true);
+        Media current = tombstone("m1");
+        current.setReferenceReleased(true);
+        current.setFileOrphaned(true);
+        when(mediaRepository.findById("m1")).thenReturn(Optional.of(current));
+
+        reaper.reap(NOW);
+        otherReaper.reap(NOW.plus(LEASE));
+
+        verify(blobStore, times(1)).dropReference(any(), any());
+        verify(imageVariantService).deleteVariants(takenOver);
+        verify(mediaRepository).delete(takenOver);
+    }
+
+    @Test
+    void reap_deletesFileOfTombstoneWrittenBeforeTheReaperFlagsExisted() throws Exception {
+        // No referenceReleased field and no content hash, so the file is untracked and deleted directly
+        Path file = Files.writeString(dir.resolve("legacy.jpg"), "0123456789");
+        Media legacy = new Media("m1", file.toString(), "product-1", "legacy.jpg", "image/jpeg", 10L);
+        legacy.setDeletedAt(NOW.minusSeconds(60));
+        legacy.setReapAfter(NOW.minusSeconds(60));
+        MediaReaper legacyReaper = new MediaReaper(mediaRepository,
+                new BlobStore(mock(BlobRepository.class), new LocalMediaStore(), dir), imageVariantService,
+                meterRegistry, 10, 2, Duration.ofSeconds(30), LEASE);
+        when(mediaRepository.findByReapAfterLessThanEqualOrderByReapAfterAsc(eq(NOW), any())).thenReturn(List.of(legacy));
+        when(mediaRepository.claimForReaping(eq("m1"), any(), any())).thenReturn(1L);
+        when(mediaRepository.markReferenceReleased("m1")).thenReturn(1L);
+
+        try {
+            legacyReaper.reap(NOW);
+        } finally {
+            legacyReaper.shutdown();
+        }
+
+        // The release must match documents without the field, not only referenceReleased:false
+        String releaseFilter = MediaRepository.class.getMethod("markReferenceReleased", String.class)
+                .getAnnotation(Query.class).value();
+        assertTrue(releaseFilter.contains("'referenceReleased' : { '$ne' : true }"));
+        assertFalse(Files.exists(file));
+        verify(imageVariantService).deleteVariants(legacy);
+        verify(mediaRepository, never()).findById(any());
+        verify(mediaRepository).delete(legacy);
+    }
+
+    @Test
+    void reap_skipsTombstoneClaimedByAnotherReaper() {
+        Media media = tombstone("m1");
+        when(mediaRepository.findByReapAfterLessThanEqualOrderByReapAfterAsc(eq(NOW), any())).thenReturn(List.of(media));
+        when(mediaRepository.claimForReaping(eq("m1"), any(), any())).thenReturn(0L);
+
+        reaper.reap(NOW);
+
+        verifyNoInteractions(blobStore, imageVariantService);
+        verify(mediaRepository, never()).delete(any());
+        verify(mediaRepository, never()).markReferenceReleased(any());
+    }
+
+    @Test
+    void reap_publishesBacklog() {
+        when(mediaRepository.findByReapAfterLessThanEqualOrderByReapAfterAsc(eq(NOW), any())).thenReturn(List.of());
+        when(mediaRepository.countByReapAfterIsNotNull()).thenReturn(42L);
+
+        reaper.reap(NOW);
+
+        assertEquals(42.0, meterRegistry.get("media.reaper.backlog").gauge().value());
+    }
+
+    private MediaReaper newReaper() {
+        return new MediaReaper(mediaRepository, blobStore, imageVariantService, meterRegistry, 10, 2,
+                Duration.ofSeconds(30), LEASE);
+    }
+
+    private static Media tombstone(String id) {
+        Media media = new Media(id, "uploads/images/" + id + ".jpg", "product-1", id + ".jpg", "image/jpeg", 10L);
+        media.setContentHash("hash-" + id);
+        media.setDeletedAt(NOW.minusSeconds(60));
+        media.setReapAfter(NOW.minusSeconds(60));
+        return media;
+    }
+}
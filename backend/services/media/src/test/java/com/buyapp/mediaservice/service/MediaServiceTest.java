@@ -0,0 +1,146 @@
+package com.buyapp.mediaservice.service;
+
+import com.buyapp.common.client.UserDirectoryClient;
+import com.buyapp.common.event.MediaEvent;
+import com.buyapp.common.exception.BadRequestException;
+import com.buyapp.common.exception.ForbiddenException;
+import com.buyapp.common.security.AuthenticatedUser;
+import com.buyapp.mediaservice.model.Media;
+import com.buyapp.mediaservice.repository.MediaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MediaServiceTest {
+
+    @Mock
+    private MediaRepository mediaRepository;
+
+    @Mock
+    private UserDirectoryClient userDirectoryClient;
+
+    @Mock
+    private MediaEventProducer mediaEventProducer;
+
+    @InjectMocks
+    private MediaService mediaService;
+
+    @Test
+    void getMediaByProductIds_groupsOneQueryByProductInRequestOrder() {
+        when(mediaRepository.findByProductIdInAndDeletedAtIsNull(Set.of("p2", "p1", "p3"))).thenReturn(List.of(
+                media("m1", "p1"), media("m2", "p2"), media("m3", "p1")));
+
+        Map<String, List<Media>> byProduct = mediaService.getMediaByProductIds(List.of("p2", "p1", "p3", "p1"));
+
+        assertEquals(List.of("p2", "p1", "p3"), List.copyOf(byProduct.keySet()));
+        assertEquals(List.of("m1", "m3"), byProduct.get("p1").stream().map(Media::getId).toList());
+        assertEquals(List.of("m2"), byProduct.get("p2").stream().map(Media::getId).toList());
+        assertTrue(byProduct.get("p3").isEmpty());
+        verify(mediaRepository, never()).findByProductIdAndDeletedAtIsNull(any());
+    }
+
+    @Test
+    void getPrimaryMediaByProductIds_leavesOutProductsWithoutMedia() {
+        when(mediaRepository.findPrimaryByProductIdIn(Set.of("p1", "p2"))).thenReturn(List.of(media("m1", "p1")));
+
+        Map<String, Media> primary = mediaService.getPrimaryMediaByProductIds(List.of("p1", "p2"));
+
+        assertEquals(Set.of("p1"), primary.keySet());
+        assertEquals("m1", primary.get("p1").getId());
+    }
+
+    @Test
+    void getMediaByProductIds_rejectsEmptyAndOversizedBatches() {
+        assertThrows(BadRequestException.class, () -> mediaService.getMediaByProductIds(List.of(" ")));
+        List<String> tooMany = IntStream.range(0, 101).mapToObj(i -> "p" + i).toList();
+        assertThrows(BadRequestException.class, () -> mediaService.getMediaByProductIds(tooMany));
+        verifyNoInteractions(mediaRepository);
+    }
+
+    @Test
+    void deleteMediaByProductIdInternal_onlyTombstonesRecords() {
+        mediaService.deleteMediaByProductIdInternal("p1");
+
+        verify(mediaRepository).tombstoneByProductId(eq("p1"), any(Instant.class));
+        verifyNoMoreInteractions(mediaRepository);
+    }
+
+    @Test
+    void deleteMedia_allowsOwnerByTheUserIdInTheToken() {
+        productServiceReturns("{\"id\":\"p1\",\"user\":\"renamed@example.com\",\"userId\":\"u1\"}");
+        when(mediaRepository.findByIdAndDeletedAtIsNull("m1")).thenReturn(Optional.of(media("m1", "p1")));
+
+        mediaService.deleteMedia("m1", seller("seller@example.com", "u1"));
+
+        verify(mediaRepository).tombstoneById(eq("m1"), any(Instant.class));
+        verify(mediaEventProducer).sendMediaEvent(any(MediaEvent.class));
+        verifyNoInteractions(userDirectoryClient);
+    }
+
+    @Test
+    void deleteMedia_refusesAnotherUsersProductEvenWhenTheEmailMatches() {
+        productServiceReturns("{\"id\":\"p1\",\"user\":\"seller@example.com\",\"userId\":\"u2\"}");
+        when(mediaRepository.findByIdAndDeletedAtIsNull("m1")).thenReturn(Optional.of(media("m1", "p1")));
+
+        assertThrows(ForbiddenException.class, () -> mediaService.deleteMedia("m1", seller("seller@example.com", "u1")));
+
+        verify(mediaRepository, never()).tombstoneById(any(), any());
+        verifyNoInteractions(mediaEventProducer, userDirectoryClient);
+    }
+
+    @Test
+    void verifyCanUpload_refusesAnotherUsersProduct() {
+        productServiceReturns("{\"id\":\"p1\",\"user\":\"seller@example.com\",\"userId\":\"u2\"}");
+
+        Mono<Void> check = mediaService.verifyCanUpload("p1", seller("seller@example.com", "u1"));
+
+        assertThrows(ForbiddenException.class, check::block);
+        verifyNoInteractions(mediaRepository, userDirectoryClient);
+    }
+
+    private void productServiceReturns(String json) {
+        WebClient.Builder builder = WebClient.builder().exchangeFunction(request -> Mono.just(
+                ClientResponse.create(HttpStatus.OK)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body(json)
+                        .build()));
+        ReflectionTestUtils.setField(mediaService, "webClientBuilder", builder);
+        ReflectionTestUtils.setField(mediaService, "remoteCallTimeout", Duration.ofSeconds(1));
+    }
+
+    private static Authentication seller(String email, String userId) {
+        List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_SELLER"));
+        return new UsernamePasswordAuthenticationToken(new AuthenticatedUser(email, userId, authorities), null,
+                authorities);
+    }
+
+    private static Media media(String id, String productId) {
+        return new Media(id, "uploads/images/" + id + ".jpg", productId, id + ".jpg", "image/jpeg", 10L);
+    }
+}
@@ -0,0 +1,118 @@
+package com.buyapp.mediaservice.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers(disabledWithoutDocker = true)
+class S3MediaStoreTest {
+
+    private static final String BUCKET = "media";
+    private static final String KEY = "uploads/images/84/d8/84d89877.png";
+
+    @Container
+    static MinIOContainer minio = new MinIOContainer("minio/minio:RELEASE.2023-09-04T19-57-37Z");
+
+    private static S3Client client;
+    private static S3Presigner presigner;
+    private static S3MediaStore store;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void setUp() {
+        StaticCredentialsProvider credentials = StaticCredentialsProvider.create(
+                AwsBasicCredentials.create(minio.getUserName(), minio.getPassword()));
+        URI endpoint = URI.create(minio.getS3URL());
+        client = S3Client.builder()
+                .endpointOverride(endpoint)
+                .region(Region.US_EAST_1)
+                .credentialsProvider(credentials)
+                .forcePathStyle(true)
+                .build();
+        presigner = S3Presigner.builder()
+                .endpointOverride(endpoint)
+                .region(Region.US_EAST_1)
+                .credentialsProvider(credentials)
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+                .build();
+        client.createBucket(request -> request.bucket(BUCKET));
+        store = new S3MediaStore(client, presigner, BUCKET);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        presigner.close();
+        client.close();
+    }
+
+    @Test
+    void put_uploadsFileAndRemovesSource() throws IOException {
+        Path source = Files.writeString(dir.resolve("upload.tmp"), "0123456789");
+
+        store.put(KEY, source);
+
+        assertFalse(Files.exists(source));
+        assertTrue(store.exists(KEY));
+        try (MediaStore.Content content = store.open(KEY)) {
+            assertEquals(10, content.length());
+            assertEquals("0123456789", new String(content.stream().readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals("image/png", client.headObject(request -> request.bucket(BUCKET).key(KEY)).contentType());
+    }
+
+    @Test
+    void delete_removesFileAndToleratesMissingKey() throws IOException {
+        store.put("uploads/avatars/gone.png", Files.writeString(dir.resolve("upload.tmp"), "x"));
+
+        store.delete("uploads/avatars/gone.png");
+        store.delete("uploads/avatars/gone.png");
+
+        assertFalse(store.exists("uploads/avatars/gone.png"));
+        assertThrows(NoSuchFileException.class, () -> store.open("uploads/avatars/gone.png"));
+    }
+
+    @Test
+    void presignedUrl_downloadsWithoutCredentials() throws Exception {
+        store.put(KEY, Files.writeString(dir.resolve("upload.tmp"), "0123456789"));
+
+        URI url = store.presignedUrl(KEY, Duration.ofMinutes(1), "image/png", "photo.png",
+                "public, max-age=31536000, immutable");
+        HttpResponse<String> response = HttpClient.newHttpClient()
+                .send(HttpRequest.newBuilder(url).build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("0123456789", response.body());
+        assertEquals("inline; filename=\"photo.png\"", response.headers().firstValue("Content-Disposition").orElse(null));
+        assertEquals("public, max-age=31536000, immutable", response.headers().firstValue("Cache-Control").orElse(null));
+    }
+
+    @Test
+    void localFile_isNullForRemoteStore() {
+        assertNull(store.localFile(KEY));
+    }
+}
@@ -0,0 +1,65 @@
+package com.buyapp.mediaservice.service;
+
+import com.buyapp.mediaservice.repository.AvatarRepository;
+import com.buyapp.mediaservice.repository.BlobRepository;
+import com.buyapp.mediaservice.repository.MediaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StorageMigrationServiceTest {
+
+    @TempDir
+    Path root;
+
+    @Mock
+    private MediaRepository mediaRepository;
+
+    @Mock
+    private BlobRepository blobRepository;
+
+    @Mock
+    private AvatarRepository avatarRepository;
+
+    @InjectMocks
+    private StorageMigrationService storageMigrationService;
+
+    @Test
+    void migrate_movesFlatFilesAndRewritesTheirRecords() throws IOException {
+        Path image = Files.writeString(root.resolve("abcdef.jpg"), "image");
+        Path variant = Files.writeString(root.resolve("abcdef_w200.jpg"), "variant");
+        Path staging = Files.writeString(root.resolve("upload-1.tmp"), "partial");
+
+        storageMigrationService.migrate(List.of(root));
+
+        Path movedImage = StoragePaths.pathFor(root, "abcdef.jpg");
+        assertTrue(Files.exists(movedImage));
+        assertTrue(Files.exists(StoragePaths.pathFor(root, "abcdef_w200.jpg")));
+        assertFalse(Files.exists(image));
+        assertFalse(Files.exists(variant));
+        assertTrue(Files.exists(staging));
+
+        verify(mediaRepository).updateImagePath(image.toString(), movedImage.toString());
+        verify(blobRepository).updatePath(image.toString(), movedImage.toString());
+        verify(avatarRepository).updateImagePath(image.toString(), movedImage.toString());
+        verify(mediaRepository, times(1)).updateImagePath(anyString(), anyString());
+
+        StorageMigrationService.Status status = storageMigrationService.getStatus();
+        assertFalse(status.running());
+        assertEquals(2, status.moved());
+        assertEquals(0, status.failed());
+    }
+}
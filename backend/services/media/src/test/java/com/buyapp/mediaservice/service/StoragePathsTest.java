@@ -0,0 +1,35 @@
+package com.buyapp.mediaservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StoragePathsTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void pathFor_fansOutByLeadingCharacters() {
+        assertEquals(root.resolve("ab").resolve("cd").resolve("ABCDEF.jpg"), StoragePaths.pathFor(root, "ABCDEF.jpg"));
+        assertEquals(root.resolve("a.b"), StoragePaths.pathFor(root, "a.b"));
+    }
+
+    @Test
+    void locate_findsFlatFileBeforeAndAfterMigration() throws IOException {
+        Path flat = Files.writeString(root.resolve("abcdef.jpg"), "image");
+        String storedPath = flat.toString();
+        assertEquals(flat, StoragePaths.locate(storedPath));
+
+        Path sharded = StoragePaths.pathFor(root, "abcdef.jpg");
+        Files.createDirectories(sharded.getParent());
+        Files.move(flat, sharded);
+
+        assertEquals(sharded, StoragePaths.locate(storedPath));
+    }
+}
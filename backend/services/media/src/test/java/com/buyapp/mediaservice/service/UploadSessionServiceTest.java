@@ -0,0 +1,236 @@
+package com.buyapp.mediaservice.service;
+
+import com.buyapp.common.exception.BadRequestException;
+import com.buyapp.common.exception.ForbiddenException;
+import com.buyapp.common.exception.ResourceNotFoundException;
+import com.buyapp.mediaservice.model.Media;
+import com.buyapp.mediaservice.model.UploadSession;
+import com.buyapp.mediaservice.repository.UploadSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UploadSessionServiceTest {
+
+    private static final byte[] PNG_HEADER = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Mock
+    private MediaService mediaService;
+
+    @Mock
+    private BlobStore blobStore;
+
+    @InjectMocks
+    private UploadSessionService uploadSessionService;
+
+    private final Authentication seller = new UsernamePasswordAuthenticationToken("seller@example.com", null);
+    private UploadSession session;
+    private Path partsDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        partsDir = dir.resolve("sessions");
+        ReflectionTestUtils.setField(uploadSessionService, "sessionTtl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(uploadSessionService, "partsDir", partsDir);
+        // Parts go to the shared store, staging files to this instance's disk
+        ReflectionTestUtils.setField(uploadSessionService, "mediaStore", new LocalMediaStore());
+        lenient().when(blobStore.createStagingFile())
+                .thenAnswer(invocation -> Files.createTempFile(dir, "session-", ".tmp"));
+
+        session = new UploadSession();
+        ReflectionTestUtils.setField(session, "id", "session-1");
+        session.setProductId("prod-1");
+        session.setUserEmail("seller@example.com");
+        session.setSize(10);
+    }
+
+    @Test
+    void appendChunk_storesEachChunkAsAPartInTheSharedStore() throws IOException {
+        when(uploadSessionRepository.findById("session-1")).thenReturn(Optional.of(session));
+        when(uploadSessionRepository.addPart(eq("session-1"), anyLong(), anyLong(), anyString(), any(Instant.class)))
+                .thenReturn(1L);
+
+        uploadSessionService.appendChunk("session-1", 0, chunk("01234"), seller);
+        UploadSession updated = uploadSessionService.appendChunk("session-1", 5, chunk("567"), seller);
+
+        assertEquals(8, updated.getOffset());
+        assertEquals(2, updated.getParts().size());
+        assertEquals("01234", Files.readString(Path.of(updated.getParts().get(0))));
+        assertEquals("567", Files.readString(Path.of(updated.getParts().get(1))));
+        verify(uploadSessionRepository).addPart(eq("session-1"), eq(5L), eq(8L), eq(updated.getParts().get(1)),
+                any(Instant.class));
+    }
+
+    @Test
+    void appendChunk_rejectsWrongOffset() {
+        session.setOffset(5);
+        when(uploadSessionRepository.findById("session-1")).thenReturn(Optional.of(session));
+
+        assertThrows(BadRequestException.class,
+                () -> uploadSessionService.appendChunk("session-1", 3, chunk("34567"), seller));
+        verify(uploadSessionRepository, never()).addPart(any(), anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    void appendChunk_dropsChunkRunningPastDeclaredSize() throws IOException {
+        session.setOffset(5);
+        when(uploadSessionRepository.findById("session-1")).thenReturn(Optional.of(session));
+
+        assertThrows(BadRequestException.class,
+                () -> uploadSessionService.appendChunk("session-1", 5, chunk("56789X"), seller));
+        assertFalse(Files.exists(partsDir));
+        assertEquals(5, session.getOffset());
+        verify(uploadSessionRepository, never()).addPart(any(), anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    void appendChunk_dropsChunkWhenAnotherInstanceRecordedOneAtTheSameOffset() throws IOException {
+        when(uploadSessionRepository.findById("session-1")).thenReturn(Optional.of(session));
+        when(uploadSessionRepository.addPart(eq("session-1"), eq(0L), eq(5L), anyString(), any(Instant.class)))
+                .thenReturn(0L);
+
+        assertThrows(BadRequestException.class,
+                () -> uploadSessionService.appendChunk("session-1", 0, chunk("01234"), seller));
+        try (var parts = Files.list(partsDir)) {
+            assertEquals(0, parts.count());
+        }
+        assertTrue(session.getParts().isEmpty());
+    }
+
+    @Test
+    void appendChunk_keepsBytesThatArrivedBeforeTheTransferBrokeOff() throws IOException {
+        when(uploadSessionRepository.findById("session-1")).thenReturn(Optional.of(session));
+        when(uploadSessionRepository.addPart(eq("session-1"), eq(0L), eq(3L), anyString(), any(Instant.class)))
+                .thenReturn(1L);
+        InputStream brokenOff = new InputStream() {
+            private final InputStream received = chunk("012");
+
+            @Override
+            public int read() throws IOException {
+                int next = received.read();
+                if (next == -1) {
+                    throw new IOException("Connection reset");
+                }
+                return next;
+            }
+        };
+
+        assertThrows(IOException.class,
+                () -> uploadSessionService.appendChunk("session-1", 0, brokenOff, seller));
+        assertEquals(3, session.getOffset());
+        assertEquals("012", Files.readString(Path.of(session.getParts().get(0))));
+    }
+
+    @Test
+    void appendChunk_rejectsOtherUsersSession() {
+        when(uploadSessionRepository.findById("session-1")).thenReturn(Optional.of(session));
+        Authentication other = new UsernamePasswordAuthenticationToken("other@example.com", null);
+
+        assertThrows(ForbiddenException.class,
+                () -> uploadSessionService.appendChunk("session-1", 0, chunk("0"), other));
+    }
+
+    @Test
+    void complete_rejectsIncompleteUpload() {
+        session.setOffset(5);
+        when(uploadSessionRepository.findById("session-1")).thenReturn(Optional.of(session));
+
+        assertThrows(BadRequestException.class, () -> uploadSessionService.complete("session-1", seller));
+        verifyNoInteractions(mediaService);
+    }
+
+    @Test
+    void complete_joinsPartsReceivedByAnyInstance() throws IOException {
+        completeSession();
+        when(uploadSessionRepository.deleteByIdAndOffset("session-1", 10)).thenReturn(1L);
+        when(blobStore.stage(any(Path.class))).thenAnswer(invocation -> {
+            Path joined = invocation.getArgument(0);
+            return new BlobStore.StagedFile(joined, "hash", Files.size(joined));
+        });
+        when(mediaService.completeStagedUpload(any(), eq(ImageType.PNG), any(), eq("prod-1"), eq(seller)))
+                .thenReturn(Mono.just(new Media()));
+
+        uploadSessionService.complete("session-1", seller).block();
+
+        verify(blobStore).stage(argThat(joined -> {
+            try {
+                byte[] bytes = Files.readAllBytes(joined);
+                return bytes.length == 10 && bytes[8] == 'X' && bytes[9] == 'Y';
+            } catch (IOException e) {
+                return false;
+            }
+        }));
+        try (var parts = Files.list(partsDir)) {
+            assertEquals(0, parts.count());
+        }
+    }
+
+    @Test
+    void complete_onlyOneInstanceCompletesTheSession() throws IOException {
+        completeSession();
+        when(uploadSessionRepository.deleteByIdAndOffset("session-1", 10)).thenReturn(0L);
+
+        assertThrows(ResourceNotFoundException.class, () -> uploadSessionService.complete("session-1", seller));
+        verifyNoInteractions(mediaService);
+        verify(blobStore, never()).stage(any(Path.class));
+    }
+
+    @Test
+    void removeExpiredSessions_deletesParts() throws IOException {
+        Path part = Files.writeString(Files.createDirectories(partsDir).resolve("session-1-0-a.part"), "01234");
+        session.setParts(List.of(part.toString()));
+        when(uploadSessionRepository.findByExpiresAtBefore(any(Instant.class))).thenReturn(List.of(session));
+
+        uploadSessionService.removeExpiredSessions();
+
+        assertFalse(Files.exists(part));
+        verify(uploadSessionRepository).delete(session);
+    }
+
+    // A PNG header and two more bytes, received as two parts
+    private void completeSession() throws IOException {
+        Files.createDirectories(partsDir);
+        Path first = Files.write(partsDir.resolve("session-1-0-a.part"), PNG_HEADER);
+        Path second = Files.writeString(partsDir.resolve("session-1-8-b.part"), "XY");
+        session.setParts(List.of(first.toString(), second.toString()));
+        session.setOffset(10);
+        when(uploadSessionRepository.findById("session-1")).thenReturn(Optional.of(session));
+    }
+
+    private static ByteArrayInputStream chunk(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
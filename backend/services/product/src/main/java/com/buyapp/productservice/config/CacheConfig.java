@@ -0,0 +1,19 @@
+package com.buyapp.productservice.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caffeine-backed product caches, sized and expired through spring.cache.* in
+ * application.yml. Hit/miss/eviction counts are published as cache.* metrics.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // Product entities by id
+    public static final String PRODUCTS = "products";
+
+    // Rendered ProductDto by product id
+    public static final String PRODUCT_DTOS = "productDtos";
+}
@@ -8,7 +8,6 @@ import javax.crypto.SecretKey;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -16,6 +15,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import com.buyapp.common.security.AuthenticatedUser;
+import com.buyapp.common.security.JwtUtil;
+
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
@@ -78,11 +80,7 @@ public class JwtUserDetailsService implements UserDetailsService {
                 authorities.add(new SimpleGrantedAuthority("ROLE_USER"));
             }
 
-            return User.builder()
-                    .username(email)
-                    .password("") // Password not needed for JWT auth
-                    .authorities(authorities)
-                    .build();
+            return new AuthenticatedUser(email, claims.get(JwtUtil.USER_ID_CLAIM, String.class), authorities);
         } catch (Exception e) {
             throw new UsernameNotFoundException("Invalid JWT token: " + e.getMessage());
         }
@@ -1,12 +1,22 @@
 package com.buyapp.productservice.controller;
 
+import com.buyapp.common.dto.ProductBatchResultDto;
 import com.buyapp.common.dto.ProductDto;
+import com.buyapp.common.dto.ProductFacetsDto;
+import com.buyapp.common.dto.ProductPageDto;
+import com.buyapp.productservice.model.Product;
+import com.buyapp.productservice.repository.ProductFilter;
+import com.buyapp.productservice.service.ProductETags;
 import com.buyapp.productservice.service.ProductService;
+import com.buyapp.productservice.service.ProductView;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 
@@ -18,13 +28,70 @@ public class ProductController {
     private ProductService productService;
 
     // Public endpoints (no authentication required)
+    // Optional filters: minPrice, maxPrice, minQuality, maxQuality, seller (email) or sellerId.
+    // Full products by default, as the storefront grid shows descriptions; view=summary
+    // returns the lightweight projection
     @GetMapping
-    public List<ProductDto> getAllProducts() {
-        return productService.getAllProducts();
+    public List<?> getAllProducts(
+            @RequestParam(defaultValue = "full") String view,
+            ProductFilter filter,
+            WebRequest request) {
+        if (ProductView.fromString(view) == ProductView.SUMMARY) {
+            return productService.getProductSummaries(filter, request::checkNotModified);
+        }
+        return productService.getProducts(filter, request::checkNotModified);
     }
 
+    // Keyset-paginated catalog: sort is one of newest, price_asc, price_desc,
+    // quality_asc, quality_desc; pass the returned nextCursor as "after"
+    // together with the same filters. Items are summaries unless view=full
+    @GetMapping("/page")
+    public ProductPageDto<?> getProductPage(
+            @RequestParam(defaultValue = "newest") String sort,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean facets,
+            @RequestParam(defaultValue = "summary") String view,
+            ProductFilter filter,
+            WebRequest request) {
+        if (ProductView.fromString(view) == ProductView.FULL) {
+            return productService.getProductPage(sort, after, size, filter, facets, request::checkNotModified);
+        }
+        return productService.getProductSummaryPage(sort, after, size, filter, facets, request::checkNotModified);
+    }
+
+    // Price band and quality decile counts for the same filters as above
+    @GetMapping("/facets")
+    public ProductFacetsDto getFacets(ProductFilter filter) {
+        return productService.getFacets(filter);
+    }
+
+    // Full catalog export as newline-delimited JSON, written as it is read
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ProductDto> streamAllProducts() {
+        return productService.streamAllProducts();
+    }
+
+    @GetMapping("/search")
+    public List<?> searchProducts(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "summary") String view) {
+        if (ProductView.fromString(view) == ProductView.FULL) {
+            return productService.searchProducts(q, size);
+        }
+        return productService.searchProductSummaries(q, size);
+    }
+
+    // Both lookups are served from the local caches; a matching If-None-Match
+    // or If-Modified-Since gets a 304 without the body
     @GetMapping("/{id}")
-    public ProductDto getProductById(@PathVariable String id) {
+    public ProductDto getProductById(@PathVariable String id, WebRequest request) {
+        Product product = productService.getProductEntityById(id);
+        long lastModified = product.getLastModified() != null ? product.getLastModified().toEpochMilli() : -1;
+        if (request.checkNotModified(ProductETags.of(product), lastModified)) {
+            return null;
+        }
         return productService.getProductById(id);
     }
 
@@ -41,6 +108,22 @@ public class ProductController {
         return productService.createProduct(productDto, authentication);
     }
 
+    // Bulk onboarding: each item gets its own status, so a partial failure
+    // only needs the failed items resent
+    @PostMapping("/batch")
+    @PreAuthorize("hasRole('SELLER') or hasRole('ADMIN')")
+    public ProductBatchResultDto createProducts(@RequestBody List<ProductDto> productDtos,
+            Authentication authentication) {
+        return productService.createProducts(productDtos, authentication);
+    }
+
+    @PutMapping("/batch")
+    @PreAuthorize("isAuthenticated()")
+    public ProductBatchResultDto updateProducts(@RequestBody List<ProductDto> productDtos,
+            Authentication authentication) {
+        return productService.updateProducts(productDtos, authentication);
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
     public ProductDto updateProduct(@PathVariable String id, @Valid @RequestBody ProductDto productDto,
@@ -56,9 +139,8 @@ public class ProductController {
 
     @GetMapping("/my-products")
     @PreAuthorize("isAuthenticated()")
-    public List<ProductDto> getMyProducts(Authentication authentication) {
-        String userEmail = authentication.getName();
-        return productService.getProductsByUser(userEmail);
+    public List<ProductDto> getMyProducts(Authentication authentication, WebRequest request) {
+        return productService.getMyProducts(authentication, request::checkNotModified);
     }
 
     // Internal endpoint for user deletion (called by User Service)
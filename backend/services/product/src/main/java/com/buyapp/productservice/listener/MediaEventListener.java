@@ -0,0 +1,42 @@
+package com.buyapp.productservice.listener;
+
+import com.buyapp.common.event.MediaEvent;
+import com.buyapp.productservice.service.ProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps each product's primary image id in step with the Media Service, so
+ * listings can show a thumbnail without asking it. Media events are keyed by
+ * product, so the last event seen for a product carries its current image.
+ * Caches are evicted by the PRODUCT_UPDATED event sent once the image is
+ * written, not by the media event, which would race this write.
+ */
+@Component
+public class MediaEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaEventListener.class);
+
+    private final ProductService productService;
+
+    public MediaEventListener(ProductService productService) {
+        this.productService = productService;
+    }
+
+    @KafkaListener(topics = "${kafka.topic.media-events}", groupId = "product-service-group", containerFactory = "mediaEventKafkaListenerContainerFactory")
+    public void handleMediaEvent(MediaEvent event) {
+        if (event.getProductId() == null) {
+            return;
+        }
+
+        try {
+            if (productService.updatePrimaryImage(event.getProductId(), event.getPrimaryMediaId())) {
+                logger.info("Primary image of product {} is now {}", event.getProductId(), event.getPrimaryMediaId());
+            }
+        } catch (Exception e) {
+            logger.error("Error updating primary image of product: {}", event.getProductId(), e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.buyapp.productservice.listener;
+
+import com.buyapp.common.client.UserDirectoryClient;
+import com.buyapp.common.event.ProductEvent;
+import com.buyapp.common.event.UserEvent;
+import com.buyapp.productservice.service.ProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the in-process product and user caches, the search index and the facet
+ * counts of every replica coherent. Each instance joins its own consumer group so that it sees
+ * all events, not a share of them.
+ */
+@Component
+public class ProductCacheEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCacheEventListener.class);
+
+    private final ProductService productService;
+
+    private final UserDirectoryClient userDirectoryClient;
+
+    public ProductCacheEventListener(ProductService productService, UserDirectoryClient userDirectoryClient) {
+        this.productService = productService;
+        this.userDirectoryClient = userDirectoryClient;
+    }
+
+    @KafkaListener(topics = "${kafka.topic.product-events}", groupId = "product-service-cache-${random.uuid}", containerFactory = "productEventKafkaListenerContainerFactory")
+    public void handleProductEvent(ProductEvent event) {
+        if (event.getEventType() == ProductEvent.EventType.PRODUCT_UPDATED
+                || event.getEventType() == ProductEvent.EventType.PRODUCT_DELETED) {
+            logger.debug("Evicting cached product: {}", event.getProductId());
+            productService.evictProduct(event.getProductId());
+        }
+
+        // Deletion events are sent before the product is removed, so never re-read those
+        if (event.getEventType() == ProductEvent.EventType.PRODUCT_DELETED) {
+            productService.unindexProduct(event.getProductId());
+        } else {
+            productService.reindexProduct(event.getProductId());
+        }
+    }
+
+    @KafkaListener(topics = "${kafka.topic.user-events}", groupId = "product-service-cache-${random.uuid}", containerFactory = "userEventKafkaListenerContainerFactory")
+    public void handleUserEvent(UserEvent event) {
+        userDirectoryClient.invalidate(event.getUserId(), event.getEmail());
+
+        // Seller updates are evicted per product from the PRODUCT_UPDATED events sent once the
+        // snapshot is rewritten; evicting here would race that write
+        if (event.getEventType() == UserEvent.EventType.USER_DELETED) {
+            logger.debug("Evicting cached products after {} for seller: {}", event.getEventType(), event.getUserId());
+            productService.evictAllProducts();
+        }
+
+        // The replica that handles the deletion removes the products from Mongo
+        if (event.getEventType() == UserEvent.EventType.USER_DELETED) {
+            productService.unindexSeller(event.getUserId());
+        }
+    }
+}
@@ -32,6 +32,17 @@ public class UserEventListener {
             } catch (Exception e) {
                 logger.error("Error deleting products for seller: {}", event.getUserId(), e);
             }
+        } else if (event.getEventType() == UserEvent.EventType.USER_UPDATED) {
+            logger.info("Processing USER_UPDATED event for seller: {}", event.getUserId());
+
+            try {
+                // Refresh the seller snapshot on all of this seller's products
+                long updated = productService.updateSellerSnapshot(
+                        event.getUserId(), event.getEmail(), event.getName(), event.getAvatar());
+                logger.info("Refreshed seller snapshot on {} products for seller: {}", updated, event.getUserId());
+            } catch (Exception e) {
+                logger.error("Error refreshing seller snapshot for seller: {}", event.getUserId(), e);
+            }
         }
     }
 }
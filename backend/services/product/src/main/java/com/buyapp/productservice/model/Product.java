@@ -1,6 +1,9 @@
 package com.buyapp.productservice.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -10,7 +13,14 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 
+import java.time.Instant;
+
 @Document(collection = "products")
+@CompoundIndexes({
+        // Keyset pagination indexes, see ProductSort
+        @CompoundIndex(name = "price_id", def = "{'price': 1, '_id': 1}"),
+        @CompoundIndex(name = "quality_id", def = "{'quality': 1, '_id': 1}")
+})
 public class Product {
     @Id
     private String id;
@@ -30,9 +40,23 @@ public class Product {
     @Max(value = 100, message = "Quality must be between 0 and 100")
     private Integer quality;
 
+    @Indexed
     @Field("userId")
     private String userId;
 
+    // Seller snapshot, written at creation and refreshed from USER_UPDATED events
+    private String sellerEmail;
+    private String sellerName;
+    private String sellerAvatar;
+
+    // First remaining image, maintained from media events
+    private String primaryImageId;
+
+    // Bumped by ProductService on every write and used for ETags. Not @Version,
+    // because documents written before it existed have no value.
+    private Long version;
+    private Instant lastModified;
+
     public Product() {
     }
 
@@ -89,4 +113,52 @@ public class Product {
     public void setUserId(String userId) {
         this.userId = userId;
     }
-}
\ No newline at end of file
+
+    public String getSellerEmail() {
+        return sellerEmail;
+    }
+
+    public void setSellerEmail(String sellerEmail) {
+        this.sellerEmail = sellerEmail;
+    }
+
+    public String getSellerName() {
+        return sellerName;
+    }
+
+    public void setSellerName(String sellerName) {
+        this.sellerName = sellerName;
+    }
+
+    public String getSellerAvatar() {
+        return sellerAvatar;
+    }
+
+    public void setSellerAvatar(String sellerAvatar) {
+        this.sellerAvatar = sellerAvatar;
+    }
+
+    public String getPrimaryImageId() {
+        return primaryImageId;
+    }
+
+    public void setPrimaryImageId(String primaryImageId) {
+        this.primaryImageId = primaryImageId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Instant lastModified) {
+        this.lastModified = lastModified;
+    }
+}
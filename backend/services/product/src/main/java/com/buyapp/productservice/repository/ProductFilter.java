@@ -0,0 +1,73 @@
+package com.buyapp.productservice.repository;
+
+/**
+ * Optional catalog filters, bound from query parameters. Bounds are inclusive
+ * and a missing bound is open. A seller can be given by email ({@code seller}),
+ * which the service resolves to {@code sellerId}.
+ */
+public class ProductFilter {
+
+    private Double minPrice;
+    private Double maxPrice;
+    private Integer minQuality;
+    private Integer maxQuality;
+    private String seller;
+    private String sellerId;
+
+    public ProductFilter() {
+    }
+
+    public boolean isEmpty() {
+        return minPrice == null && maxPrice == null
+                && minQuality == null && maxQuality == null
+                && seller == null && sellerId == null;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Double minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public Integer getMinQuality() {
+        return minQuality;
+    }
+
+    public void setMinQuality(Integer minQuality) {
+        this.minQuality = minQuality;
+    }
+
+    public Integer getMaxQuality() {
+        return maxQuality;
+    }
+
+    public void setMaxQuality(Integer maxQuality) {
+        this.maxQuality = maxQuality;
+    }
+
+    public String getSeller() {
+        return seller;
+    }
+
+    public void setSeller(String seller) {
+        this.seller = seller;
+    }
+
+    public String getSellerId() {
+        return sellerId;
+    }
+
+    public void setSellerId(String sellerId) {
+        this.sellerId = sellerId;
+    }
+}
@@ -2,11 +2,23 @@ package com.buyapp.productservice.repository;
 
 import com.buyapp.productservice.model.Product;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface ProductRepository extends MongoRepository<Product, String> {
+public interface ProductRepository extends MongoRepository<Product, String>, ProductRepositoryCustom {
     List<Product> findByUserId(String userId);
 
     void deleteByUserId(String userId);
+
+    // Backed by a server-side cursor; the caller must close the stream
+    Stream<Product> streamAllBy();
+
+    @Query("{ 'userId' : ?0 }")
+    @Update("{ '$set' : { 'sellerEmail' : ?1, 'sellerName' : ?2, 'sellerAvatar' : ?3, 'lastModified' : ?4 }, '$inc' : { 'version' : 1 } }")
+    long updateSellerByUserId(String userId, String sellerEmail, String sellerName, String sellerAvatar,
+            Instant lastModified);
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.buyapp.productservice.repository;
+
+import com.buyapp.productservice.model.Product;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductRepositoryCustom {
+    /**
+     * Keyset page query: returns up to {@code limit} products matching
+     * {@code filter}, ordered by {@code sort}, strictly after the position
+     * (afterValue, afterId). Pass a null afterId for the first page.
+     */
+    List<Product> findPage(ProductSort sort, ProductFilter filter, Object afterValue, String afterId, int limit);
+
+    List<Product> findFiltered(ProductFilter filter);
+
+    /**
+     * Same as {@link #findPage}, but only the fields a product summary needs
+     * are read from Mongo. The summary queries return partial products.
+     */
+    List<Product> findSummaryPage(ProductSort sort, ProductFilter filter, Object afterValue, String afterId,
+            int limit);
+
+    List<Product> findFilteredSummaries(ProductFilter filter);
+
+    List<Product> findSummariesById(Collection<String> ids);
+
+    /**
+     * Sets the primary image of a product, bumping its version only when the
+     * value actually changes. Returns the updated product, or null when
+     * nothing was modified.
+     */
+    Product updatePrimaryImage(String productId, String primaryImageId, Instant lastModified);
+
+    /**
+     * Writes the fields a seller edits and bumps the version in one update,
+     * leaving the fields other writers own (primary image, seller snapshot)
+     * as they are in the database. Returns the updated product, or null when
+     * it no longer exists.
+     */
+    Product updateDetails(Product edited, Instant lastModified);
+
+    /**
+     * {@link #updateDetails(Product, Instant)} for several products in one bulk
+     * write. Read the products back for their new versions.
+     */
+    void updateDetails(Collection<Product> edited, Instant lastModified);
+}
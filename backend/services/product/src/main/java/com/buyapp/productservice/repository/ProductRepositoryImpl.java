@@ -0,0 +1,165 @@
+package com.buyapp.productservice.repository;
+
+import com.buyapp.productservice.model.Product;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    // Summary fields, plus the version for ETags; _id is always returned and
+    // price/quality double as keyset cursor values
+    static final String[] SUMMARY_FIELDS = { "name", "price", "quality", "primaryImageId", "sellerName",
+            "version" };
+
+    private final MongoTemplate mongoTemplate;
+
+    public ProductRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Product> findPage(ProductSort sort, ProductFilter filter, Object afterValue, String afterId,
+            int limit) {
+        return mongoTemplate.find(pageQuery(sort, filter, afterValue, afterId, limit), Product.class);
+    }
+
+    @Override
+    public List<Product> findFiltered(ProductFilter filter) {
+        return mongoTemplate.find(filterQuery(filter), Product.class);
+    }
+
+    @Override
+    public List<Product> findSummaryPage(ProductSort sort, ProductFilter filter, Object afterValue,
+            String afterId, int limit) {
+        return mongoTemplate.find(summary(pageQuery(sort, filter, afterValue, afterId, limit)), Product.class);
+    }
+
+    @Override
+    public List<Product> findFilteredSummaries(ProductFilter filter) {
+        return mongoTemplate.find(summary(filterQuery(filter)), Product.class);
+    }
+
+    @Override
+    public List<Product> findSummariesById(Collection<String> ids) {
+        return mongoTemplate.find(summary(new Query(Criteria.where("id").in(ids))), Product.class);
+    }
+
+    @Override
+    public Product updatePrimaryImage(String productId, String primaryImageId, Instant lastModified) {
+        // $ne also matches a missing field, so the first image of an older document is set too
+        Query query = new Query(Criteria.where("id").is(productId).and("primaryImageId").ne(primaryImageId));
+        Update update = new Update()
+                .set("primaryImageId", primaryImageId)
+                .set("lastModified", lastModified)
+                .inc("version", 1);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Product.class);
+    }
+
+    @Override
+    public Product updateDetails(Product edited, Instant lastModified) {
+        return mongoTemplate.findAndModify(new Query(Criteria.where("id").is(edited.getId())),
+                detailsUpdate(edited, lastModified), FindAndModifyOptions.options().returnNew(true), Product.class);
+    }
+
+    @Override
+    public void updateDetails(Collection<Product> edited, Instant lastModified) {
+        if (edited.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (Product product : edited) {
+            bulk.updateOne(new Query(Criteria.where("id").is(product.getId())), detailsUpdate(product, lastModified));
+        }
+        bulk.execute();
+    }
+
+    // Only the edited fields, so a concurrent primary image or seller update is never overwritten
+    private static Update detailsUpdate(Product edited, Instant lastModified) {
+        return new Update()
+                .set("name", edited.getName())
+                .set("description", edited.getDescription())
+                .set("price", edited.getPrice())
+                .set("quality", edited.getQuality())
+                .set("lastModified", lastModified)
+                .inc("version", 1);
+    }
+
+    private Query pageQuery(ProductSort sort, ProductFilter filter, Object afterValue, String afterId, int limit) {
+        Query query = filterQuery(filter);
+        if (afterId != null) {
+            query.addCriteria(keysetCriteria(sort, afterValue, afterId));
+        }
+        return query.with(sort.toSort()).limit(limit);
+    }
+
+    private Query summary(Query query) {
+        query.fields().include(SUMMARY_FIELDS);
+        return query;
+    }
+
+    // One criteria per field, so they combine with the keyset criteria
+    private Query filterQuery(ProductFilter filter) {
+        Query query = new Query();
+        if (filter == null) {
+            return query;
+        }
+        if (filter.getMinPrice() != null || filter.getMaxPrice() != null) {
+            query.addCriteria(range("price", filter.getMinPrice(), filter.getMaxPrice()));
+        }
+        if (filter.getMinQuality() != null || filter.getMaxQuality() != null) {
+            query.addCriteria(range("quality", filter.getMinQuality(), filter.getMaxQuality()));
+        }
+        if (filter.getSellerId() != null) {
+            query.addCriteria(Criteria.where("userId").is(filter.getSellerId()));
+        }
+        return query;
+    }
+
+    private Criteria range(String field, Object min, Object max) {
+        Criteria criteria = Criteria.where(field);
+        if (min != null) {
+            criteria.gte(min);
+        }
+        if (max != null) {
+            criteria.lte(max);
+        }
+        return criteria;
+    }
+
+    // Everything that sorts strictly after (afterValue, afterId), so that the
+    // query can seek on the (field, _id) index instead of skipping
+    private Criteria keysetCriteria(ProductSort sort, Object afterValue, String afterId) {
+        boolean ascending = sort.getDirection() == Sort.Direction.ASC;
+        Criteria idAfter = ascending
+                ? Criteria.where("id").gt(afterId)
+                : Criteria.where("id").lt(afterId);
+
+        String field = sort.getField();
+        if (field == null) {
+            return idAfter;
+        }
+
+        // MongoDB sorts missing/null values before everything else
+        if (afterValue == null) {
+            Criteria tie = new Criteria().andOperator(Criteria.where(field).is(null), idAfter);
+            return ascending
+                    ? new Criteria().orOperator(tie, Criteria.where(field).ne(null))
+                    : tie;
+        }
+
+        Criteria tie = new Criteria().andOperator(Criteria.where(field).is(afterValue), idAfter);
+        if (ascending) {
+            return new Criteria().orOperator(Criteria.where(field).gt(afterValue), tie);
+        }
+        return new Criteria().orOperator(Criteria.where(field).lt(afterValue), tie, Criteria.where(field).is(null));
+    }
+}
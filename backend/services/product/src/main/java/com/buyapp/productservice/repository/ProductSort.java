@@ -0,0 +1,47 @@
+package com.buyapp.productservice.repository;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * Supported catalog orderings. Every ordering ends on _id so that the sort is
+ * total and can be resumed from a keyset cursor.
+ */
+public enum ProductSort {
+    NEWEST(null, Sort.Direction.DESC),
+    PRICE_ASC("price", Sort.Direction.ASC),
+    PRICE_DESC("price", Sort.Direction.DESC),
+    QUALITY_ASC("quality", Sort.Direction.ASC),
+    QUALITY_DESC("quality", Sort.Direction.DESC);
+
+    private final String field;
+    private final Sort.Direction direction;
+
+    ProductSort(String field, Sort.Direction direction) {
+        this.field = field;
+        this.direction = direction;
+    }
+
+    // Sort key other than _id, or null when ordering by _id alone (recency)
+    public String getField() {
+        return field;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public Sort toSort() {
+        return field == null
+                ? Sort.by(direction, "id")
+                : Sort.by(direction, field).and(Sort.by(direction, "id"));
+    }
+
+    public static ProductSort fromString(String text) {
+        for (ProductSort sort : ProductSort.values()) {
+            if (sort.name().equalsIgnoreCase(text)) {
+                return sort;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sort: " + text);
+    }
+}
@@ -0,0 +1,68 @@
+package com.buyapp.productservice.service;
+
+import com.buyapp.common.exception.BadRequestException;
+import com.buyapp.productservice.model.Product;
+import com.buyapp.productservice.repository.ProductSort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor: the sort it belongs to, the sort key value and the _id
+ * of the last product on a page, base64url encoded.
+ */
+public final class ProductCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final ProductSort sort;
+    private final Object value;
+    private final String id;
+
+    private ProductCursor(ProductSort sort, Object value, String id) {
+        this.sort = sort;
+        this.value = value;
+        this.id = id;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public static String encode(ProductSort sort, Product last) {
+        Object value = valueOf(sort, last);
+        String raw = sort.name() + SEPARATOR + (value != null ? value : "") + SEPARATOR + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String cursor, ProductSort sort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3 || ProductSort.valueOf(parts[0]) != sort || parts[2].isEmpty()) {
+                throw new BadRequestException("Cursor does not match the requested sort");
+            }
+            return new ProductCursor(sort, parseValue(sort, parts[1]), parts[2]);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    private static Object valueOf(ProductSort sort, Product product) {
+        if (sort.getField() == null) {
+            return null;
+        }
+        return "price".equals(sort.getField()) ? product.getPrice() : product.getQuality();
+    }
+
+    private static Object parseValue(ProductSort sort, String value) {
+        if (sort.getField() == null || value.isEmpty()) {
+            return null;
+        }
+        return "price".equals(sort.getField()) ? (Object) Double.valueOf(value) : (Object) Integer.valueOf(value);
+    }
+}
@@ -0,0 +1,57 @@
+package com.buyapp.productservice.service;
+
+import com.buyapp.common.dto.FacetBucketDto;
+import com.buyapp.common.dto.ProductFacetsDto;
+import com.buyapp.productservice.model.Product;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Strong ETags derived from product ids and versions, so a conditional request
+ * can be answered before any DTO is built or JSON is written.
+ */
+public final class ProductETags {
+
+    private ProductETags() {
+    }
+
+    public static String of(Product product) {
+        return "\"" + product.getId() + "-" + version(product) + "\"";
+    }
+
+    /**
+     * ETag of a list response. Extras are whatever else ends up in the body, such
+     * as the next cursor or facet counts.
+     */
+    public static String of(List<Product> products, Object... extras) {
+        StringBuilder signature = new StringBuilder(products.size() * 32);
+        for (Product product : products) {
+            signature.append(product.getId()).append(':').append(version(product)).append(';');
+        }
+        for (Object extra : extras) {
+            signature.append('|');
+            if (extra instanceof ProductFacetsDto facets) {
+                appendFacets(signature, facets);
+            } else {
+                signature.append(extra);
+            }
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(signature.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    private static void appendFacets(StringBuilder signature, ProductFacetsDto facets) {
+        for (FacetBucketDto bucket : facets.getPrice()) {
+            signature.append(bucket.getCount()).append(',');
+        }
+        for (FacetBucketDto bucket : facets.getQuality()) {
+            signature.append(bucket.getCount()).append(',');
+        }
+    }
+
+    // Documents written before versioning count as version 0
+    private static long version(Product product) {
+        return product.getVersion() != null ? product.getVersion() : 0;
+    }
+}
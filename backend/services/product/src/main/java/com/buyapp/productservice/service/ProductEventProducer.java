@@ -5,11 +5,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
 public class ProductEventProducer {
@@ -22,13 +25,36 @@ public class ProductEventProducer {
     @Value("${kafka.topic.product-events:product-events}")
     private String productEventsTopic;
 
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final Executor virtualCallbackExecutor = new VirtualThreadTaskExecutor("kafka-callback-");
+
     public void sendProductEvent(ProductEvent event) {
         log.info("Sending product event: {}", event);
+        send(event);
+    }
+
+    /**
+     * Sends a batch of events and flushes once, so the producer ships them in as
+     * few requests as possible instead of one round trip per event.
+     */
+    public void sendProductEvents(List<ProductEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        log.info("Sending {} product events", events.size());
+        events.forEach(this::send);
+        kafkaTemplate.flush();
+    }
 
+    private void send(ProductEvent event) {
         CompletableFuture<SendResult<String, ProductEvent>> future = kafkaTemplate.send(productEventsTopic,
                 event.getProductId(), event);
 
-        future.whenComplete((result, ex) -> {
+        // Without virtual threads the callback stays on the producer's I/O thread
+        Executor callbackExecutor = virtualThreads ? virtualCallbackExecutor : Runnable::run;
+        future.whenCompleteAsync((result, ex) -> {
             if (ex == null) {
                 log.info("Successfully sent product event [{}] with offset=[{}]",
                         event.getEventType(), result.getRecordMetadata().offset());
@@ -36,6 +62,6 @@ public class ProductEventProducer {
                 log.error("Failed to send product event [{}]: {}",
                         event.getEventType(), ex.getMessage());
             }
-        });
+        }, callbackExecutor);
     }
 }
@@ -0,0 +1,226 @@
+package com.buyapp.productservice.service;
+
+import com.buyapp.common.dto.FacetBucketDto;
+import com.buyapp.common.dto.ProductFacetsDto;
+import com.buyapp.productservice.model.Product;
+import com.buyapp.productservice.repository.ProductFilter;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Incrementally maintained facet counts: a grid of price band by quality
+ * decile, for the whole catalog and per seller. Each product's cell is
+ * remembered, so an update moves a single count and a query only sums a
+ * handful of cells.
+ *
+ * Counts follow the usual faceting rule: the price facet applies every filter
+ * except the price range, and the quality facet every filter except the
+ * quality range. Ranges are applied at bucket granularity, so a bucket counts
+ * when it overlaps the range. Products without a price or quality are not
+ * counted.
+ */
+@Component
+public class ProductFacetIndex {
+
+    // Lower bounds of the price bands, the last band is open-ended
+    private static final double[] PRICE_BANDS = { 0, 25, 50, 100, 250, 500, 1000 };
+    private static final int QUALITY_BUCKET_SIZE = 10;
+    private static final int QUALITY_BUCKETS = 10;
+
+    private final long[][] totals = newGrid();
+    private final Map<String, long[][]> bySeller = new HashMap<>();
+    // product id -> the cell it is counted in
+    private final Map<String, Cell> cells = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(product.getId());
+            if (product.getPrice() == null || product.getQuality() == null) {
+                return;
+            }
+            Cell cell = new Cell(product.getUserId(), priceBand(product.getPrice()),
+                    qualityBucket(product.getQuality()));
+            cells.put(product.getId(), cell);
+            add(cell, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops every product of a seller and returns their ids.
+     */
+    public List<String> removeSeller(String sellerId) {
+        List<String> removed = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            Iterator<Map.Entry<String, Cell>> iterator = cells.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Cell> entry = iterator.next();
+                if (sellerId.equals(entry.getValue().sellerId)) {
+                    add(entry.getValue(), -1);
+                    iterator.remove();
+                    removed.add(entry.getKey());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return removed;
+    }
+
+    public ProductFacetsDto facets(ProductFilter filter) {
+        boolean[] bands = new boolean[PRICE_BANDS.length];
+        for (int band = 0; band < bands.length; band++) {
+            bands[band] = overlaps(PRICE_BANDS[band], bandUpperBound(band),
+                    filter.getMinPrice(), filter.getMaxPrice());
+        }
+        boolean[] buckets = new boolean[QUALITY_BUCKETS];
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            buckets[bucket] = overlaps(bucket * QUALITY_BUCKET_SIZE, bucketUpperBound(bucket),
+                    toDouble(filter.getMinQuality()), toDouble(filter.getMaxQuality()));
+        }
+
+        long[] priceCounts = new long[PRICE_BANDS.length];
+        long[] qualityCounts = new long[QUALITY_BUCKETS];
+        long total = 0;
+
+        lock.readLock().lock();
+        try {
+            long[][] grid = filter.getSellerId() != null ? bySeller.get(filter.getSellerId()) : totals;
+            if (grid != null) {
+                for (int band = 0; band < PRICE_BANDS.length; band++) {
+                    for (int bucket = 0; bucket < QUALITY_BUCKETS; bucket++) {
+                        long count = grid[band][bucket];
+                        if (buckets[bucket]) {
+                            priceCounts[band] += count;
+                        }
+                        if (bands[band]) {
+                            qualityCounts[bucket] += count;
+                        }
+                        if (bands[band] && buckets[bucket]) {
+                            total += count;
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<FacetBucketDto> price = new ArrayList<>();
+        for (int band = 0; band < PRICE_BANDS.length; band++) {
+            Double upper = bandUpperBound(band);
+            String label = upper != null
+                    ? formatPrice(PRICE_BANDS[band]) + "-" + formatPrice(upper)
+                    : formatPrice(PRICE_BANDS[band]) + "+";
+            price.add(new FacetBucketDto(label, PRICE_BANDS[band], upper, priceCounts[band]));
+        }
+        List<FacetBucketDto> quality = new ArrayList<>();
+        for (int bucket = 0; bucket < QUALITY_BUCKETS; bucket++) {
+            int lower = bucket * QUALITY_BUCKET_SIZE;
+            Double upper = bucketUpperBound(bucket);
+            String label = lower + "-" + (upper != null ? upper.intValue() - 1 : 100);
+            quality.add(new FacetBucketDto(label, (double) lower, upper, qualityCounts[bucket]));
+        }
+        return new ProductFacetsDto(price, quality, total);
+    }
+
+    private void removeLocked(String productId) {
+        Cell cell = cells.remove(productId);
+        if (cell != null) {
+            add(cell, -1);
+        }
+    }
+
+    private void add(Cell cell, int delta) {
+        totals[cell.priceBand][cell.qualityBucket] += delta;
+        if (cell.sellerId == null) {
+            return;
+        }
+        long[][] grid = bySeller.computeIfAbsent(cell.sellerId, key -> newGrid());
+        grid[cell.priceBand][cell.qualityBucket] += delta;
+        if (delta < 0 && isEmpty(grid)) {
+            bySeller.remove(cell.sellerId);
+        }
+    }
+
+    private static int priceBand(double price) {
+        int band = 0;
+        while (band + 1 < PRICE_BANDS.length && price >= PRICE_BANDS[band + 1]) {
+            band++;
+        }
+        return band;
+    }
+
+    private static int qualityBucket(int quality) {
+        return Math.max(0, Math.min(quality / QUALITY_BUCKET_SIZE, QUALITY_BUCKETS - 1));
+    }
+
+    private static Double bandUpperBound(int band) {
+        return band + 1 < PRICE_BANDS.length ? PRICE_BANDS[band + 1] : null;
+    }
+
+    // The top decile also holds 100, so it has no upper bound
+    private static Double bucketUpperBound(int bucket) {
+        return bucket + 1 < QUALITY_BUCKETS ? (double) (bucket + 1) * QUALITY_BUCKET_SIZE : null;
+    }
+
+    // [lower, upper) against the inclusive filter range [min, max]
+    private static boolean overlaps(double lower, Double upper, Double min, Double max) {
+        return (max == null || lower <= max) && (min == null || upper == null || upper > min);
+    }
+
+    private static Double toDouble(Integer value) {
+        return value != null ? value.doubleValue() : null;
+    }
+
+    private static String formatPrice(double price) {
+        return price == Math.rint(price) ? String.valueOf((long) price) : String.valueOf(price);
+    }
+
+    private static long[][] newGrid() {
+        return new long[PRICE_BANDS.length][QUALITY_BUCKETS];
+    }
+
+    private static boolean isEmpty(long[][] grid) {
+        for (long[] row : grid) {
+            for (long count : row) {
+                if (count != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static final class Cell {
+        private final String sellerId;
+        private final int priceBand;
+        private final int qualityBucket;
+
+        private Cell(String sellerId, int priceBand, int qualityBucket) {
+            this.sellerId = sellerId;
+            this.priceBand = priceBand;
+            this.qualityBucket = qualityBucket;
+        }
+    }
+}
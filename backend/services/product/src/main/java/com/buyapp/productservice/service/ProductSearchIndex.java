@@ -0,0 +1,208 @@
+package com.buyapp.productservice.service;
+
+import com.buyapp.productservice.model.Product;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over product name and description.
+ *
+ * Terms are kept in a sorted map so a query token also matches every term it is
+ * a prefix of. Results are ranked by TF-IDF, with name matches weighted above
+ * description matches and exact matches above prefix matches. Every query token
+ * has to match for a product to be returned.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final double PREFIX_MATCH_FACTOR = 0.5;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    // term -> (product id -> weighted term frequency)
+    private final NavigableMap<String, Map<String, Integer>> postings = new TreeMap<>();
+    // product id -> its terms, so updates and removals touch only its postings
+    private final Map<String, Set<String>> termsByProduct = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void index(Product product) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        addTerms(frequencies, product.getName(), NAME_WEIGHT);
+        addTerms(frequencies, product.getDescription(), DESCRIPTION_WEIGHT);
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(product.getId());
+            frequencies.forEach((term, frequency) -> postings
+                    .computeIfAbsent(term, key -> new HashMap<>())
+                    .put(product.getId(), frequency));
+            termsByProduct.put(product.getId(), frequencies.keySet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return termsByProduct.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the best matching products, most relevant first.
+     */
+    public List<String> search(String query, int limit) {
+        Set<String> tokens = new LinkedHashSet<>(tokenize(query));
+        if (tokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            double productCount = termsByProduct.size();
+            Map<String, Double> scores = null;
+
+            for (String token : tokens) {
+                Map<String, Double> tokenScores = scoreToken(token, productCount);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    // Keep only products matching every token so far
+                    Map<String, Double> previous = scores;
+                    scores = new HashMap<>();
+                    for (Map.Entry<String, Double> entry : tokenScores.entrySet()) {
+                        Double score = previous.get(entry.getKey());
+                        if (score != null) {
+                            scores.put(entry.getKey(), score + entry.getValue());
+                        }
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+
+            return topIds(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Partial top-k selection, so common terms do not sort every match
+    private static List<String> topIds(Map<String, Double> scores, int limit) {
+        Comparator<Map.Entry<String, Double>> byRelevance = Map.Entry.<String, Double>comparingByValue()
+                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder()));
+        PriorityQueue<Map.Entry<String, Double>> best = new PriorityQueue<>(limit + 1, byRelevance);
+        for (Map.Entry<String, Double> entry : scores.entrySet()) {
+            best.offer(entry);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        List<String> ids = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            ids.add(best.poll().getKey());
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    // Best score per product for one query token, over its exact and prefix matches
+    private Map<String, Double> scoreToken(String token, double productCount) {
+        Map<String, Double> scores = new HashMap<>();
+
+        Map<String, Map<String, Integer>> matches = token.length() >= MIN_PREFIX_LENGTH
+                ? postings.subMap(token, true, token + Character.MAX_VALUE, false)
+                : postings.subMap(token, true, token, true);
+
+        int expansions = 0;
+        for (Map.Entry<String, Map<String, Integer>> match : matches.entrySet()) {
+            if (expansions++ == MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            Map<String, Integer> products = match.getValue();
+            double idf = Math.log(1 + productCount / products.size());
+            double factor = match.getKey().equals(token) ? 1.0 : PREFIX_MATCH_FACTOR;
+
+            for (Map.Entry<String, Integer> posting : products.entrySet()) {
+                double score = posting.getValue() * idf * factor;
+                scores.merge(posting.getKey(), score, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    private void removeLocked(String productId) {
+        Set<String> terms = termsByProduct.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<String, Integer> products = postings.get(term);
+            if (products != null) {
+                products.remove(productId);
+                if (products.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static void addTerms(Map<String, Integer> frequencies, String text, int weight) {
+        for (String token : tokenize(text)) {
+            frequencies.merge(token, weight, Integer::sum);
+        }
+    }
+
+    // Lower-cased words with accents stripped, so "Café" and "cafe" match
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_WORD.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
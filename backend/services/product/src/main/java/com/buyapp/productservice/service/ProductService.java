@@ -1,46 +1,259 @@
 package com.buyapp.productservice.service;
 
+import com.buyapp.common.client.UserDirectoryClient;
+import com.buyapp.common.dto.ProductBatchItemDto;
+import com.buyapp.common.dto.ProductBatchResultDto;
 import com.buyapp.common.dto.ProductDto;
+import com.buyapp.common.dto.ProductFacetsDto;
+import com.buyapp.common.dto.ProductPageDto;
+import com.buyapp.common.dto.ProductSummaryDto;
 import com.buyapp.common.dto.UserDto;
 import com.buyapp.common.event.ProductEvent;
+import com.buyapp.common.exception.BadRequestException;
 import com.buyapp.common.exception.ForbiddenException;
 import com.buyapp.common.exception.ResourceNotFoundException;
+import com.buyapp.common.security.AuthenticatedUser;
+import com.buyapp.productservice.config.CacheConfig;
 import com.buyapp.productservice.model.Product;
+import com.buyapp.productservice.repository.ProductFilter;
 import com.buyapp.productservice.repository.ProductRepository;
+import com.buyapp.productservice.repository.ProductSort;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
-import reactor.core.publisher.Mono;
-
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProductService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+
     @Autowired
     private ProductRepository productRepository;
 
     @Autowired
-    private WebClient.Builder webClientBuilder;
+    private UserDirectoryClient userDirectoryClient;
 
     @Autowired
     private ProductEventProducer productEventProducer;
 
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductFacetIndex productFacetIndex;
+
+    @Autowired
+    private Validator validator;
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int STREAM_BATCH_SIZE = 500;
+    private static final int MAX_BATCH_SIZE = 1000;
+
     public List<ProductDto> getAllProducts() {
-        return productRepository.findAll()
-                .stream()
-                .map(this::toDto)
+        return toDtos(productRepository.findAll());
+    }
+
+    /**
+     * The list read methods take the caller's conditional request check. It is
+     * given the response ETag before any DTO is built, and when it reports a
+     * match the method returns null so the caller can answer 304.
+     */
+    public List<ProductDto> getProducts(ProductFilter filter, Predicate<String> notModified) {
+        List<Product> products = filter == null || filter.isEmpty()
+                ? productRepository.findAll()
+                : productRepository.findFiltered(resolveFilter(filter));
+        if (notModified.test(ProductETags.of(products))) {
+            return null;
+        }
+        return toDtos(products);
+    }
+
+    /**
+     * Same listing as {@link #getProducts}, read through the summary projection:
+     * only the summary fields are fetched and no seller lookup is made.
+     */
+    public List<ProductSummaryDto> getProductSummaries(ProductFilter filter, Predicate<String> notModified) {
+        List<Product> products = productRepository.findFilteredSummaries(
+                resolveFilter(filter != null ? filter : new ProductFilter()));
+        if (notModified.test(ProductETags.of(products, ProductView.SUMMARY))) {
+            return null;
+        }
+        return toSummaries(products);
+    }
+
+    // Served from the maintained aggregate, no query runs against Mongo
+    public ProductFacetsDto getFacets(ProductFilter filter) {
+        return productFacetIndex.facets(resolveFilter(filter != null ? filter : new ProductFilter()));
+    }
+
+    public ProductPageDto<ProductDto> getProductPage(String sort, String after, Integer size, ProductFilter filter,
+            boolean includeFacets, Predicate<String> notModified) {
+        return page(ProductView.FULL, this::toDtos, sort, after, size, filter, includeFacets, notModified);
+    }
+
+    public ProductPageDto<ProductSummaryDto> getProductSummaryPage(String sort, String after, Integer size,
+            ProductFilter filter, boolean includeFacets, Predicate<String> notModified) {
+        return page(ProductView.SUMMARY, this::toSummaries, sort, after, size, filter, includeFacets,
+                notModified);
+    }
+
+    private <T> ProductPageDto<T> page(ProductView view, Function<List<Product>, List<T>> mapper, String sort,
+            String after, Integer size, ProductFilter filter, boolean includeFacets,
+            Predicate<String> notModified) {
+        ProductSort productSort;
+        try {
+            productSort = ProductSort.fromString(sort);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+
+        int pageSize = size != null ? size : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        ProductCursor cursor = after != null && !after.isEmpty() ? ProductCursor.decode(after, productSort) : null;
+        ProductFilter productFilter = resolveFilter(filter != null ? filter : new ProductFilter());
+        Object afterValue = cursor != null ? cursor.getValue() : null;
+        String afterId = cursor != null ? cursor.getId() : null;
+
+        // Fetch one extra product to know whether there is a next page
+        List<Product> products = view == ProductView.SUMMARY
+                ? productRepository.findSummaryPage(productSort, productFilter, afterValue, afterId, pageSize + 1)
+                : productRepository.findPage(productSort, productFilter, afterValue, afterId, pageSize + 1);
+
+        String nextCursor = null;
+        if (products.size() > pageSize) {
+            products = products.subList(0, pageSize);
+            nextCursor = ProductCursor.encode(productSort, products.get(pageSize - 1));
+        }
+
+        ProductFacetsDto facets = includeFacets ? productFacetIndex.facets(productFilter) : null;
+        String etag = view == ProductView.SUMMARY
+                ? ProductETags.of(products, view, nextCursor, facets)
+                : ProductETags.of(products, nextCursor, facets);
+        if (notModified.test(etag)) {
+            return null;
+        }
+
+        ProductPageDto<T> page = new ProductPageDto<>(mapper.apply(products), nextCursor);
+        page.setFacets(facets);
+        return page;
+    }
+
+    /**
+     * Streams the whole catalog from a Mongo cursor. Products are pulled only as
+     * the subscriber requests them and mapped in small batches, so memory stays
+     * bounded regardless of catalog size.
+     */
+    public Flux<ProductDto> streamAllProducts() {
+        return Flux.fromStream(productRepository::streamAllBy)
+                .buffer(STREAM_BATCH_SIZE)
+                .concatMapIterable(this::toDtos, 1)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public List<ProductDto> searchProducts(String query, Integer size) {
+        List<String> ids = searchIds(query, size);
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return toDtos(inRankingOrder(ids, productRepository.findAllById(ids)));
+    }
+
+    public List<ProductSummaryDto> searchProductSummaries(String query, Integer size) {
+        List<String> ids = searchIds(query, size);
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return toSummaries(inRankingOrder(ids, productRepository.findSummariesById(ids)));
+    }
+
+    private List<String> searchIds(String query, Integer size) {
+        if (query == null || query.isBlank()) {
+            throw new BadRequestException("Search query must not be blank");
+        }
+
+        int limit = size != null ? size : DEFAULT_PAGE_SIZE;
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return productSearchIndex.search(query, limit);
+    }
+
+    // Keep the ranking order; ids whose products are already gone are skipped
+    private List<Product> inRankingOrder(List<String> ids, List<Product> found) {
+        Map<String, Product> products = found.stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return ids.stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Loads the whole catalog into the search index and the facet counts once
+     * the application is up. Later changes are applied incrementally by the
+     * write paths below.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndexes() {
+        try (Stream<Product> products = productRepository.streamAllBy()) {
+            products.forEach(this::index);
+            logger.info("Product indexes built with {} products", productSearchIndex.size());
+        } catch (Exception e) {
+            logger.error("Could not build product indexes: {}", e.getMessage(), e);
+        }
+    }
+
+    // Re-reads a product changed by another replica into the local indexes
+    public void reindexProduct(String id) {
+        productRepository.findById(id).ifPresentOrElse(this::index, () -> unindexProduct(id));
+    }
+
+    public void unindexProduct(String id) {
+        productSearchIndex.remove(id);
+        productFacetIndex.remove(id);
+    }
+
+    public void unindexSeller(String userId) {
+        productFacetIndex.removeSeller(userId).forEach(productSearchIndex::remove);
+    }
+
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_DTOS, key = "#id")
     public ProductDto getProductById(String id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with this id:" + id));
         return toDto(product);
     }
 
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS, key = "#id")
     public Product getProductEntityById(String id) {
         return productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with this id:" + id));
@@ -50,14 +263,19 @@ public class ProductService {
         String userEmail = authentication.getName();
 
         // Call User Service to get user information
-        UserDto user = getUserByEmail(userEmail);
+        UserDto user = userDirectoryClient.getUserByEmail(userEmail);
         if (user == null) {
             throw new IllegalArgumentException("Authenticated user not found in user service");
         }
 
         Product product = toEntity(productDto);
         product.setUserId(user.getId()); // Store user ID internally
+        product.setSellerEmail(user.getEmail());
+        product.setSellerName(user.getName());
+        product.setSellerAvatar(user.getAvatar());
+        touch(product);
         Product saved = productRepository.save(product);
+        index(saved);
 
         // Publish PRODUCT_CREATED event
         ProductEvent event = new ProductEvent(
@@ -71,6 +289,155 @@ public class ProductService {
         return toDto(saved);
     }
 
+    /**
+     * Creates many products for the authenticated seller. Items are validated in
+     * parallel and an invalid item is reported without failing the others. The
+     * valid ones are stored with one bulk write and announced with one batched
+     * event send.
+     */
+    public ProductBatchResultDto createProducts(List<ProductDto> productDtos, Authentication authentication) {
+        checkBatchSize(productDtos);
+
+        // Resolve the seller once for the whole batch
+        UserDto user = userDirectoryClient.getUserByEmail(authentication.getName());
+        if (user == null) {
+            throw new IllegalArgumentException("Authenticated user not found in user service");
+        }
+
+        List<List<String>> errors = validate(productDtos);
+        ProductBatchItemDto[] results = new ProductBatchItemDto[productDtos.size()];
+        List<Integer> accepted = new ArrayList<>();
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < productDtos.size(); i++) {
+            if (!errors.get(i).isEmpty()) {
+                results[i] = failedItem(i, errors.get(i));
+                continue;
+            }
+            Product product = toEntity(productDtos.get(i));
+            product.setUserId(user.getId());
+            product.setSellerEmail(user.getEmail());
+            product.setSellerName(user.getName());
+            product.setSellerAvatar(user.getAvatar());
+            touch(product);
+            accepted.add(i);
+            products.add(product);
+        }
+
+        List<Product> saved = products.isEmpty() ? Collections.emptyList() : productRepository.saveAll(products);
+
+        List<ProductEvent> events = new ArrayList<>();
+        for (int i = 0; i < saved.size(); i++) {
+            Product product = saved.get(i);
+            index(product);
+            events.add(new ProductEvent(
+                    ProductEvent.EventType.PRODUCT_CREATED,
+                    product.getId(),
+                    product.getName(),
+                    user.getId(),
+                    user.getEmail()));
+            results[accepted.get(i)] = new ProductBatchItemDto(accepted.get(i),
+                    ProductBatchItemDto.Status.CREATED, toDto(product, user.getEmail()), null);
+        }
+        productEventProducer.sendProductEvents(events);
+
+        return new ProductBatchResultDto(Arrays.asList(results));
+    }
+
+    /**
+     * Updates many products by id, with the same per-item reporting as
+     * {@link #createProducts}. Every item needs an id and must belong to the
+     * authenticated seller unless the caller is an admin.
+     */
+    @CacheEvict(cacheNames = { CacheConfig.PRODUCTS, CacheConfig.PRODUCT_DTOS }, allEntries = true)
+    public ProductBatchResultDto updateProducts(List<ProductDto> productDtos, Authentication authentication) {
+        checkBatchSize(productDtos);
+
+        boolean isAdmin = authentication.getAuthorities().stream()
+                .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
+        String currentUserId = isAdmin ? null : currentUserId(authentication);
+
+        List<List<String>> errors = validate(productDtos);
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < productDtos.size(); i++) {
+            if (errors.get(i).isEmpty() && productDtos.get(i).getId() != null) {
+                ids.add(productDtos.get(i).getId());
+            }
+        }
+        Map<String, Product> existing = ids.isEmpty()
+                ? Collections.emptyMap()
+                : productRepository.findAllById(ids).stream()
+                        .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        ProductBatchItemDto[] results = new ProductBatchItemDto[productDtos.size()];
+        List<Integer> accepted = new ArrayList<>();
+        List<Product> products = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < productDtos.size(); i++) {
+            if (!errors.get(i).isEmpty()) {
+                results[i] = failedItem(i, errors.get(i));
+                continue;
+            }
+
+            ProductDto productDto = productDtos.get(i);
+            Product product = productDto.getId() != null ? existing.get(productDto.getId()) : null;
+            String error = null;
+            if (productDto.getId() == null) {
+                error = "Product id is required";
+            } else if (!seen.add(productDto.getId())) {
+                error = "Product appears more than once in the batch";
+            } else if (product == null) {
+                error = "Product not found with this id:" + productDto.getId();
+            } else if (!isAdmin && !currentUserId.equals(product.getUserId())) {
+                error = "You don't have permission to modify this product";
+            }
+            if (error != null) {
+                results[i] = failedItem(i, List.of(error));
+                continue;
+            }
+
+            product.setName(productDto.getName());
+            product.setDescription(productDto.getDescription());
+            product.setPrice(productDto.getPrice());
+            product.setQuality(productDto.getQuality());
+            accepted.add(i);
+            products.add(product);
+        }
+
+        // Targeted updates, then read back for the versions the database assigned
+        productRepository.updateDetails(products, Instant.now());
+        Map<String, Product> saved = products.isEmpty()
+                ? Collections.emptyMap()
+                : productRepository.findAllById(products.stream().map(Product::getId).toList()).stream()
+                        .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<ProductEvent> events = new ArrayList<>();
+        for (int i = 0; i < products.size(); i++) {
+            Product product = saved.get(products.get(i).getId());
+            if (product == null) {
+                // Deleted while the batch was applied
+                results[accepted.get(i)] = failedItem(accepted.get(i),
+                        List.of("Product not found with this id:" + products.get(i).getId()));
+                continue;
+            }
+            index(product);
+            events.add(new ProductEvent(
+                    ProductEvent.EventType.PRODUCT_UPDATED,
+                    product.getId(),
+                    product.getName(),
+                    product.getUserId(),
+                    resolveSellerEmail(product)));
+            results[accepted.get(i)] = new ProductBatchItemDto(accepted.get(i),
+                    ProductBatchItemDto.Status.UPDATED, toDto(product), null);
+        }
+        productEventProducer.sendProductEvents(events);
+
+        return new ProductBatchResultDto(Arrays.asList(results));
+    }
+
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_DTOS, key = "#id")
+    })
     public ProductDto updateProduct(String id, ProductDto productDto, Authentication authentication) {
         Product existing = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with this id:" + id));
@@ -84,11 +451,17 @@ public class ProductService {
         existing.setPrice(productDto.getPrice());
         existing.setQuality(productDto.getQuality());
 
-        Product updated = productRepository.save(existing);
+        // Only the edited fields are written, so a concurrent primary image or
+        // seller update survives and the version only ever moves forward
+        Product updated = productRepository.updateDetails(existing, Instant.now());
+        if (updated == null) {
+            throw new ResourceNotFoundException("Product not found with this id:" + id);
+        }
+        index(updated);
 
         // Publish PRODUCT_UPDATED event
-        UserDto user = getUserById(updated.getUserId());
-        if (user == null) {
+        String sellerEmail = resolveSellerEmail(updated);
+        if (sellerEmail == null) {
             throw new IllegalArgumentException(
                     "User not found for updated product with userId: " + updated.getUserId());
         }
@@ -96,13 +469,17 @@ public class ProductService {
                 ProductEvent.EventType.PRODUCT_UPDATED,
                 updated.getId(),
                 updated.getName(),
-                user.getId(),
-                user.getEmail());
+                updated.getUserId(),
+                sellerEmail);
         productEventProducer.sendProductEvent(event);
 
         return toDto(updated);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_DTOS, key = "#id")
+    })
     public void deleteProduct(String id, Authentication authentication) {
         Product existing = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with this id:" + id));
@@ -112,47 +489,113 @@ public class ProductService {
         }
 
         // Publish PRODUCT_DELETED event before deletion
-        UserDto user = getUserById(existing.getUserId());
-        if (user == null) {
+        String sellerEmail = resolveSellerEmail(existing);
+        if (sellerEmail == null) {
             throw new IllegalStateException(
                     "User not found with id: " + existing.getUserId() + " when deleting product: " + id);
         }
         ProductEvent event = new ProductEvent(
                 ProductEvent.EventType.PRODUCT_DELETED,
                 existing.getId(),
-                user.getId(),
-                user.getEmail());
+                existing.getUserId(),
+                sellerEmail);
         productEventProducer.sendProductEvent(event);
 
         productRepository.deleteById(id);
+        unindexProduct(id);
     }
 
-    public List<ProductDto> getProductsByUser(String userEmail) {
+    public List<ProductDto> getProductsByUser(String userEmail, Predicate<String> notModified) {
         // Call User Service to get user information
-        UserDto user = getUserByEmail(userEmail);
+        UserDto user = userDirectoryClient.getUserByEmail(userEmail);
         if (user == null) {
             throw new IllegalArgumentException("User not found with email: " + userEmail);
         }
+        return getProductsBySeller(user.getId(), notModified);
+    }
 
-        return productRepository.findByUserId(user.getId())
-                .stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+    // The authenticated seller's products, without a User Service lookup for current tokens
+    public List<ProductDto> getMyProducts(Authentication authentication, Predicate<String> notModified) {
+        return getProductsBySeller(currentUserId(authentication), notModified);
+    }
+
+    private List<ProductDto> getProductsBySeller(String userId, Predicate<String> notModified) {
+        List<Product> products = productRepository.findByUserId(userId);
+        if (notModified.test(ProductETags.of(products))) {
+            return null;
+        }
+        return toDtos(products);
     }
 
     public List<ProductDto> getProductsByUserId(String userId) {
-        return productRepository.findByUserId(userId)
-                .stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+        return toDtos(productRepository.findByUserId(userId));
     }
 
+    @CacheEvict(cacheNames = { CacheConfig.PRODUCTS, CacheConfig.PRODUCT_DTOS }, allEntries = true)
     public void deleteProductsByUserId(String userId) {
         productRepository.deleteByUserId(userId);
+        unindexSeller(userId);
+    }
+
+    /**
+     * Records the product's first remaining image, as reported by the Media
+     * Service. Replayed or reordered events that carry the current value are
+     * no-ops and do not bump the version. A change is announced as
+     * PRODUCT_UPDATED, so every replica evicts the product after the write
+     * rather than racing it.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#productId"),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_DTOS, key = "#productId")
+    })
+    public boolean updatePrimaryImage(String productId, String primaryImageId) {
+        Product updated = productRepository.updatePrimaryImage(productId, primaryImageId, Instant.now());
+        if (updated == null) {
+            return false;
+        }
+        productEventProducer.sendProductEvent(new ProductEvent(
+                ProductEvent.EventType.PRODUCT_UPDATED,
+                updated.getId(),
+                updated.getName(),
+                updated.getUserId(),
+                resolveSellerEmail(updated)));
+        return true;
+    }
+
+    /**
+     * Rewrites the seller snapshot on all of a seller's products, then
+     * announces each as PRODUCT_UPDATED so every replica evicts it after the
+     * write rather than racing it.
+     */
+    @CacheEvict(cacheNames = { CacheConfig.PRODUCTS, CacheConfig.PRODUCT_DTOS }, allEntries = true)
+    public long updateSellerSnapshot(String userId, String email, String name, String avatar) {
+        long updated = productRepository.updateSellerByUserId(userId, email, name, avatar, Instant.now());
+        if (updated > 0) {
+            productEventProducer.sendProductEvents(productRepository.findByUserId(userId).stream()
+                    .map(product -> new ProductEvent(
+                            ProductEvent.EventType.PRODUCT_UPDATED,
+                            product.getId(),
+                            product.getName(),
+                            userId,
+                            email))
+                    .toList());
+        }
+        return updated;
+    }
+
+    // Drops a product from the local caches, used when another replica changed it
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_DTOS, key = "#id")
+    })
+    public void evictProduct(String id) {
+    }
+
+    @CacheEvict(cacheNames = { CacheConfig.PRODUCTS, CacheConfig.PRODUCT_DTOS }, allEntries = true)
+    public void evictAllProducts() {
     }
 
     private boolean canModifyProduct(Product product, Authentication authentication) {
-        String currentUserEmail = authentication.getName();
         boolean isAdmin = authentication.getAuthorities().stream()
                 .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
 
@@ -160,57 +603,148 @@ public class ProductService {
             return true;
         }
 
-        // Get current user's ID via User Service to compare with product's userId
-        UserDto currentUser = getUserByEmail(currentUserEmail);
+        return product.getUserId().equals(currentUserId(authentication));
+    }
+
+    // Taken from the token when it carries the id; older tokens fall back to the User Service
+    private String currentUserId(Authentication authentication) {
+        String userId = AuthenticatedUser.userIdOf(authentication);
+        if (userId != null) {
+            return userId;
+        }
+
+        UserDto currentUser = userDirectoryClient.getUserByEmail(authentication.getName());
         if (currentUser == null) {
             throw new IllegalArgumentException("Authenticated user not found in user service");
         }
+        return currentUser.getId();
+    }
 
-        return product.getUserId().equals(currentUser.getId());
+    // Every write goes through here so ETags change with the stored document
+    private void touch(Product product) {
+        product.setVersion(product.getVersion() != null ? product.getVersion() + 1 : 1);
+        product.setLastModified(Instant.now());
     }
 
-    private UserDto getUserByEmail(String email) {
-        try {
-            return webClientBuilder.build()
-                    .get()
-                    .uri("http://user-service/users/email/{email}", email)
-                    .retrieve()
-                    .bodyToMono(UserDto.class)
-                    .block();
-        } catch (Exception e) {
-            return null;
+    private void checkBatchSize(List<ProductDto> productDtos) {
+        if (productDtos == null || productDtos.isEmpty()) {
+            throw new BadRequestException("Batch must contain at least one product");
+        }
+        if (productDtos.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("Batch must not contain more than " + MAX_BATCH_SIZE + " products");
         }
     }
 
-    private UserDto getUserById(String userId) {
-        try {
-            return webClientBuilder.build()
-                    .get()
-                    .uri("http://user-service/users/{id}", userId)
-                    .retrieve()
-                    .bodyToMono(UserDto.class)
-                    .block();
-        } catch (Exception e) {
-            return null;
+    // Bean validation of every item, run in parallel; the result keeps request order
+    private List<List<String>> validate(List<ProductDto> productDtos) {
+        return productDtos.parallelStream()
+                .map(productDto -> productDto == null
+                        ? List.of("Product must not be null")
+                        : validator.validate(productDto).stream()
+                                .map(ConstraintViolation::getMessage)
+                                .sorted()
+                                .collect(Collectors.toList()))
+                .collect(Collectors.toList());
+    }
+
+    private ProductBatchItemDto failedItem(int index, List<String> errors) {
+        return new ProductBatchItemDto(index, ProductBatchItemDto.Status.FAILED, null, errors);
+    }
+
+    private void index(Product product) {
+        productSearchIndex.index(product);
+        productFacetIndex.index(product);
+    }
+
+    private ProductFilter resolveFilter(ProductFilter filter) {
+        if (filter.getMinPrice() != null && filter.getMaxPrice() != null
+                && filter.getMinPrice() > filter.getMaxPrice()) {
+            throw new BadRequestException("minPrice must not be greater than maxPrice");
+        }
+        if ((filter.getMinQuality() != null && (filter.getMinQuality() < 0 || filter.getMinQuality() > 100))
+                || (filter.getMaxQuality() != null && (filter.getMaxQuality() < 0 || filter.getMaxQuality() > 100))) {
+            throw new BadRequestException("Quality must be between 0 and 100");
+        }
+        if (filter.getMinQuality() != null && filter.getMaxQuality() != null
+                && filter.getMinQuality() > filter.getMaxQuality()) {
+            throw new BadRequestException("minQuality must not be greater than maxQuality");
         }
+
+        if (filter.getSeller() != null && filter.getSellerId() == null) {
+            UserDto seller = userDirectoryClient.getUserByEmail(filter.getSeller());
+            if (seller == null) {
+                throw new ResourceNotFoundException("Seller not found with email: " + filter.getSeller());
+            }
+            filter.setSellerId(seller.getId());
+        }
+        return filter;
+    }
+
+    // The seller snapshot when present, so writes need no User Service round trip
+    private String resolveSellerEmail(Product product) {
+        if (product.getSellerEmail() != null) {
+            return product.getSellerEmail();
+        }
+        UserDto user = userDirectoryClient.getUserById(product.getUserId());
+        return user != null ? user.getEmail() : null;
+    }
+
+    // The mappers are package-private for the JMH benchmarks in backend/benchmarks
+    List<ProductDto> toDtos(List<Product> products) {
+        // Only products created before seller snapshots existed need a lookup
+        Set<String> userIds = products.stream()
+                .filter(product -> product.getSellerEmail() == null)
+                .map(Product::getUserId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, String> emails = userIds.isEmpty()
+                ? Collections.emptyMap()
+                : userDirectoryClient.getUserEmailsByIds(userIds);
+
+        return products.stream()
+                .map(product -> toDto(product, product.getSellerEmail() != null
+                        ? product.getSellerEmail()
+                        : emails.get(product.getUserId())))
+                .collect(Collectors.toList());
     }
 
     private ProductDto toDto(Product product) {
+        if (product.getSellerEmail() != null) {
+            return toDto(product, product.getSellerEmail());
+        }
+
+        // Convert userId to email for display via User Service call
+        UserDto user = userDirectoryClient.getUserById(product.getUserId());
+        return toDto(product, user != null ? user.getEmail() : null);
+    }
+
+    private ProductDto toDto(Product product, String userEmail) {
         ProductDto dto = new ProductDto();
         dto.setId(product.getId());
         dto.setName(product.getName());
         dto.setDescription(product.getDescription());
         dto.setPrice(product.getPrice());
         dto.setQuality(product.getQuality());
-
-        // Convert userId to email for display via User Service call
-        UserDto user = getUserById(product.getUserId());
-        dto.setUser(user != null ? user.getEmail() : "Unknown User");
+        dto.setUser(userEmail != null ? userEmail : "Unknown User");
+        dto.setUserId(product.getUserId());
+        dto.setSellerName(product.getSellerName());
+        dto.setSellerAvatar(product.getSellerAvatar());
+        dto.setPrimaryImageId(product.getPrimaryImageId());
 
         return dto;
     }
 
-    private Product toEntity(ProductDto dto) {
+    // Products legacy enough to have no seller snapshot get no seller name
+    List<ProductSummaryDto> toSummaries(List<Product> products) {
+        List<ProductSummaryDto> summaries = new ArrayList<>(products.size());
+        for (Product product : products) {
+            summaries.add(new ProductSummaryDto(product.getId(), product.getName(), product.getPrice(),
+                    product.getQuality(), product.getPrimaryImageId(), product.getSellerName()));
+        }
+        return summaries;
+    }
+
+    Product toEntity(ProductDto dto) {
         Product product = new Product();
         product.setName(dto.getName());
         product.setDescription(dto.getDescription());
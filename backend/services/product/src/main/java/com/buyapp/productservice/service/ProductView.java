@@ -0,0 +1,21 @@
+package com.buyapp.productservice.service;
+
+import com.buyapp.common.exception.BadRequestException;
+
+/**
+ * Representation of a product in list responses: the lightweight summary a
+ * catalog grid needs, or the full product.
+ */
+public enum ProductView {
+    SUMMARY,
+    FULL;
+
+    public static ProductView fromString(String text) {
+        for (ProductView view : ProductView.values()) {
+            if (view.name().equalsIgnoreCase(text)) {
+                return view;
+            }
+        }
+        throw new BadRequestException("Unknown view: " + text);
+    }
+}
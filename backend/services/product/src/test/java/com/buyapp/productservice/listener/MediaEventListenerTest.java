@@ -0,0 +1,79 @@
+package com.buyapp.productservice.listener;
+
+import com.buyapp.common.event.MediaEvent;
+import com.buyapp.productservice.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MediaEventListenerTest {
+
+    @Mock
+    private ProductService productService;
+
+    private MediaEventListener listener;
+
+    @BeforeEach
+    void setUp() {
+        listener = new MediaEventListener(productService);
+    }
+
+    @Test
+    void whenImageUploaded_thenStoresPrimaryImage() {
+        // Arrange
+        MediaEvent event = new MediaEvent(MediaEvent.EventType.IMAGE_UPLOADED, "media-2", "prod-123",
+                "seller@example.com");
+        event.setPrimaryMediaId("media-1");
+
+        // Act
+        listener.handleMediaEvent(event);
+
+        // Assert: the product keeps its first image, not the one just uploaded
+        verify(productService, times(1)).updatePrimaryImage("prod-123", "media-1");
+    }
+
+    @Test
+    void whenLastImageDeleted_thenClearsPrimaryImage() {
+        // Arrange
+        MediaEvent event = new MediaEvent(MediaEvent.EventType.IMAGE_DELETED, "media-1", "prod-123",
+                "seller@example.com");
+
+        // Act
+        listener.handleMediaEvent(event);
+
+        // Assert
+        verify(productService, times(1)).updatePrimaryImage("prod-123", null);
+    }
+
+    @Test
+    void whenEventHasNoProduct_thenIgnoresIt() {
+        // Arrange
+        MediaEvent event = new MediaEvent();
+        event.setEventType(MediaEvent.EventType.IMAGE_UPLOADED);
+        event.setMediaId("media-1");
+
+        // Act
+        listener.handleMediaEvent(event);
+
+        // Assert
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    void whenUpdateFails_thenErrorIsLogged() {
+        // Arrange
+        MediaEvent event = new MediaEvent(MediaEvent.EventType.IMAGE_UPLOADED, "media-1", "prod-123",
+                "seller@example.com");
+        event.setPrimaryMediaId("media-1");
+        when(productService.updatePrimaryImage("prod-123", "media-1")).thenThrow(new RuntimeException("Mongo down"));
+
+        // Act & Assert
+        assertDoesNotThrow(() -> listener.handleMediaEvent(event));
+    }
+}
@@ -0,0 +1,105 @@
+package com.buyapp.productservice.listener;
+
+import com.buyapp.common.client.UserDirectoryClient;
+import com.buyapp.common.event.ProductEvent;
+import com.buyapp.common.event.UserEvent;
+import com.buyapp.productservice.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCacheEventListenerTest {
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private UserDirectoryClient userDirectoryClient;
+
+    private ProductCacheEventListener listener;
+
+    @BeforeEach
+    void setUp() {
+        listener = new ProductCacheEventListener(productService, userDirectoryClient);
+    }
+
+    @Test
+    void whenProductUpdated_thenEvictsProduct() {
+        // Arrange
+        ProductEvent event = new ProductEvent();
+        event.setEventType(ProductEvent.EventType.PRODUCT_UPDATED);
+        event.setProductId("prod-123");
+
+        // Act
+        listener.handleProductEvent(event);
+
+        // Assert
+        verify(productService, times(1)).evictProduct("prod-123");
+    }
+
+    @Test
+    void whenProductCreated_thenNothingIsEvicted() {
+        // Arrange
+        ProductEvent event = new ProductEvent();
+        event.setEventType(ProductEvent.EventType.PRODUCT_CREATED);
+        event.setProductId("prod-456");
+
+        // Act
+        listener.handleProductEvent(event);
+
+        // Assert
+        verify(productService, never()).evictProduct(anyString());
+        verify(productService, times(1)).reindexProduct("prod-456");
+    }
+
+    @Test
+    void whenProductDeleted_thenUnindexesWithoutReloading() {
+        // Arrange
+        ProductEvent event = new ProductEvent();
+        event.setEventType(ProductEvent.EventType.PRODUCT_DELETED);
+        event.setProductId("prod-789");
+
+        // Act
+        listener.handleProductEvent(event);
+
+        // Assert
+        verify(productService, times(1)).evictProduct("prod-789");
+        verify(productService, times(1)).unindexProduct("prod-789");
+        verify(productService, never()).reindexProduct(anyString());
+    }
+
+    @Test
+    void whenSellerUpdated_thenOnlyInvalidatesUserLookups() {
+        // Arrange
+        UserEvent event = new UserEvent();
+        event.setEventType(UserEvent.EventType.USER_UPDATED);
+        event.setUserId("seller-123");
+        event.setEmail("seller@example.com");
+
+        // Act
+        listener.handleUserEvent(event);
+
+        // Assert: products are evicted from the PRODUCT_UPDATED events sent after the snapshot write
+        verify(productService, never()).evictAllProducts();
+        verify(userDirectoryClient, times(1)).invalidate("seller-123", "seller@example.com");
+    }
+
+    @Test
+    void whenSellerDeleted_thenUnindexesTheirProducts() {
+        // Arrange
+        UserEvent event = new UserEvent();
+        event.setEventType(UserEvent.EventType.USER_DELETED);
+        event.setUserId("seller-123");
+
+        // Act
+        listener.handleUserEvent(event);
+
+        // Assert
+        verify(productService, times(1)).unindexSeller("seller-123");
+    }
+}
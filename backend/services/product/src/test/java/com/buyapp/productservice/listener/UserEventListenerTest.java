@@ -53,6 +53,20 @@ class UserEventListenerTest {
         verify(productService, never()).deleteProductsByUserId(anyString());
     }
 
+    @Test
+    void whenUserUpdated_thenRefreshesSellerSnapshot() {
+        // Arrange
+        UserEvent event = new UserEvent(UserEvent.EventType.USER_UPDATED, "seller-123",
+                "new@example.com", "seller", "New Name", "avatar-1");
+
+        // Act
+        listener.handleUserEvent(event);
+
+        // Assert: the snapshot on all the seller's products is refreshed in bulk
+        verify(productService, times(1))
+                .updateSellerSnapshot("seller-123", "new@example.com", "New Name", "avatar-1");
+    }
+
     @Test
     void whenUserCreated_thenNoProductDeletion() {
         // Arrange
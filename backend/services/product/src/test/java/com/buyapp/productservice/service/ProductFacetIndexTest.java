@@ -0,0 +1,96 @@
+package com.buyapp.productservice.service;
+
+import com.buyapp.common.dto.FacetBucketDto;
+import com.buyapp.common.dto.ProductFacetsDto;
+import com.buyapp.productservice.model.Product;
+import com.buyapp.productservice.repository.ProductFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductFacetIndexTest {
+
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductFacetIndex();
+        index.index(new Product("p1", "Chair", "Description", 20.0, 95, "user1"));
+        index.index(new Product("p2", "Table", "Description", 120.0, 55, "user1"));
+        index.index(new Product("p3", "Lamp", "Description", 30.0, 50, "user2"));
+        index.index(new Product("p4", "Sofa", "Description", 1500.0, 100, "user2"));
+    }
+
+    @Test
+    void facets_WithoutFilter_ShouldCountWholeCatalog() {
+        // Act
+        ProductFacetsDto facets = index.facets(new ProductFilter());
+
+        // Assert
+        assertEquals(4, facets.getTotal());
+        assertEquals(List.of(1L, 1L, 0L, 1L, 0L, 0L, 1L), counts(facets.getPrice()));
+        assertEquals(List.of(0L, 0L, 0L, 0L, 0L, 2L, 0L, 0L, 0L, 2L), counts(facets.getQuality()));
+        assertEquals("1000+", facets.getPrice().get(6).getLabel());
+        assertNull(facets.getPrice().get(6).getTo());
+        assertEquals("90-100", facets.getQuality().get(9).getLabel());
+    }
+
+    @Test
+    void facets_ShouldNotApplyAFacetsOwnRange() {
+        // Arrange
+        ProductFilter filter = new ProductFilter();
+        filter.setMaxPrice(49.99);
+
+        // Act
+        ProductFacetsDto facets = index.facets(filter);
+
+        // Assert: price counts ignore the price range, quality counts honour it
+        assertEquals(2, facets.getTotal());
+        assertEquals(List.of(1L, 1L, 0L, 1L, 0L, 0L, 1L), counts(facets.getPrice()));
+        assertEquals(List.of(0L, 0L, 0L, 0L, 0L, 1L, 0L, 0L, 0L, 1L), counts(facets.getQuality()));
+    }
+
+    @Test
+    void facets_WithSeller_ShouldCountOnlyTheirProducts() {
+        // Arrange
+        ProductFilter filter = new ProductFilter();
+        filter.setSellerId("user2");
+
+        // Act & Assert
+        assertEquals(2, index.facets(filter).getTotal());
+
+        filter.setSellerId("unknown");
+        assertEquals(0, index.facets(filter).getTotal());
+    }
+
+    @Test
+    void index_ShouldMoveUpdatedProductToItsNewBucket() {
+        // Act
+        index.index(new Product("p1", "Chair", "Description", 60.0, 15, "user1"));
+
+        // Assert
+        ProductFacetsDto facets = index.facets(new ProductFilter());
+        assertEquals(4, facets.getTotal());
+        assertEquals(List.of(0L, 1L, 1L, 1L, 0L, 0L, 1L), counts(facets.getPrice()));
+        assertEquals(1L, facets.getQuality().get(1).getCount());
+        assertEquals(1L, facets.getQuality().get(9).getCount());
+    }
+
+    @Test
+    void removeSeller_ShouldDropTheirProductsAndReturnIds() {
+        // Act
+        List<String> removed = index.removeSeller("user1");
+
+        // Assert
+        assertEquals(List.of("p1", "p2"), removed.stream().sorted().collect(Collectors.toList()));
+        assertEquals(2, index.facets(new ProductFilter()).getTotal());
+    }
+
+    private static List<Long> counts(List<FacetBucketDto> buckets) {
+        return buckets.stream().map(FacetBucketDto::getCount).collect(Collectors.toList());
+    }
+}
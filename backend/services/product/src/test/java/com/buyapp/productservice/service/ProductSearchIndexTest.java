@@ -0,0 +1,68 @@
+package com.buyapp.productservice.service;
+
+import com.buyapp.productservice.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.index(new Product("p1", "Wooden Chair", "A sturdy chair for the kitchen", 40.0, 8, "user1"));
+        index.index(new Product("p2", "Kitchen Table", "Seats four, matches the wooden chair", 120.0, 7, "user1"));
+        index.index(new Product("p3", "Café Lamp", "Warm light", 25.0, 9, "user2"));
+    }
+
+    @Test
+    void search_ShouldRankNameMatchesAboveDescriptionMatches() {
+        assertEquals(List.of("p1", "p2"), index.search("chair", 10));
+        assertEquals(List.of("p2", "p1"), index.search("kitchen", 10));
+    }
+
+    @Test
+    void search_ShouldMatchPrefixesAndIgnoreCaseAndAccents() {
+        assertEquals(List.of("p1", "p2"), index.search("WOOD", 10));
+        assertEquals(List.of("p3"), index.search("cafe", 10));
+    }
+
+    @Test
+    void search_ShouldRequireEveryToken() {
+        assertEquals(List.of("p1", "p2"), index.search("wooden chair", 10));
+        assertEquals(List.of("p2"), index.search("table chair", 10));
+        assertTrue(index.search("table lamp", 10).isEmpty());
+    }
+
+    @Test
+    void search_ShouldRespectLimit() {
+        assertEquals(List.of("p1"), index.search("chair", 1));
+    }
+
+    @Test
+    void index_ShouldReplacePreviousVersionOfProduct() {
+        // Act
+        index.index(new Product("p1", "Armchair", "Soft", 40.0, 8, "user1"));
+
+        // Assert
+        assertEquals(List.of("p2"), index.search("wooden", 10));
+        assertEquals(List.of("p1"), index.search("armchair", 10));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void remove_ShouldDropProductFromResults() {
+        // Act
+        index.remove("p2");
+
+        // Assert
+        assertEquals(List.of("p1"), index.search("chair", 10));
+        assertTrue(index.search("table", 10).isEmpty());
+        assertEquals(2, index.size());
+    }
+}
@@ -1,28 +1,52 @@
 package com.buyapp.productservice.service;
 
+import com.buyapp.common.client.UserDirectoryClient;
+import com.buyapp.common.dto.ProductBatchItemDto;
+import com.buyapp.common.dto.ProductBatchResultDto;
 import com.buyapp.common.dto.ProductDto;
+import com.buyapp.common.dto.ProductFacetsDto;
+import com.buyapp.common.dto.ProductPageDto;
+import com.buyapp.common.dto.ProductSummaryDto;
 import com.buyapp.common.dto.UserDto;
+import com.buyapp.common.event.ProductEvent;
+import com.buyapp.common.exception.BadRequestException;
 import com.buyapp.common.exception.ForbiddenException;
 import com.buyapp.common.exception.ResourceNotFoundException;
+import com.buyapp.common.security.AuthenticatedUser;
 import com.buyapp.productservice.model.Product;
+import com.buyapp.productservice.repository.ProductFilter;
 import com.buyapp.productservice.repository.ProductRepository;
+import com.buyapp.productservice.repository.ProductSort;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.web.reactive.function.client.WebClient;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,14 +56,23 @@ class ProductServiceTest {
     private ProductRepository productRepository;
 
     @Mock
-    private WebClient.Builder webClientBuilder;
+    private UserDirectoryClient userDirectoryClient;
 
     @Mock
     private ProductEventProducer productEventProducer;
 
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private ProductFacetIndex productFacetIndex;
+
     @Mock
     private Authentication authentication;
 
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     @InjectMocks
     private ProductService productService;
 
@@ -86,6 +119,38 @@ class ProductServiceTest {
         verify(productRepository, times(1)).findAll();
     }
 
+    @Test
+    void getAllProducts_ShouldResolveOwnersWithSingleLookup() {
+        // Arrange: several products from the same seller
+        Product second = new Product("2", "Second", "Second Description", 10.0, 50, "user1");
+        Product third = new Product("3", "Third", "Third Description", 20.0, 60, "user1");
+        when(productRepository.findAll()).thenReturn(Arrays.asList(testProduct, second, third));
+
+        // Act
+        List<ProductDto> result = productService.getAllProducts();
+
+        // Assert: one remote call for the whole listing, not one per product
+        assertEquals(3, result.size());
+        verify(userDirectoryClient, times(1)).getUserEmailsByIds(Set.of("user1"));
+        verify(userDirectoryClient, never()).getUserById(anyString());
+    }
+
+    @Test
+    void getAllProducts_WithSellerSnapshot_ShouldNotCallUserService() {
+        // Arrange
+        testProduct.setSellerEmail("seller@example.com");
+        testProduct.setSellerName("seller");
+        when(productRepository.findAll()).thenReturn(Arrays.asList(testProduct));
+
+        // Act
+        List<ProductDto> result = productService.getAllProducts();
+
+        // Assert
+        assertEquals("seller@example.com", result.get(0).getUser());
+        assertEquals("seller", result.get(0).getSellerName());
+        verifyNoInteractions(userDirectoryClient);
+    }
+
     @Test
     void getAllProducts_WhenEmpty_ShouldReturnEmptyList() {
         // Arrange
@@ -99,6 +164,327 @@ class ProductServiceTest {
         assertEquals(0, result.size());
     }
 
+    @Test
+    void getProductPage_WhenMoreResults_ShouldReturnCursorForNextPage() {
+        // Arrange: repository returns size + 1 products, meaning there is a next page
+        Product first = new Product("a1", "First", "Description", 10.0, 50, "user1");
+        Product second = new Product("a2", "Second", "Description", 20.0, 50, "user1");
+        Product third = new Product("a3", "Third", "Description", 30.0, 50, "user1");
+        when(productRepository.findPage(eq(ProductSort.PRICE_ASC), any(ProductFilter.class), isNull(), isNull(), eq(3)))
+                .thenReturn(Arrays.asList(first, second, third));
+
+        // Act
+        ProductPageDto<ProductDto> page = productService.getProductPage("price_asc", null, 2, null, false, etag -> false);
+
+        // Assert
+        assertEquals(2, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+
+        // The cursor resumes right after the last product of the page
+        when(productRepository.findPage(eq(ProductSort.PRICE_ASC), any(ProductFilter.class), eq(20.0), eq("a2"), eq(3)))
+                .thenReturn(Arrays.asList(third));
+        ProductPageDto<ProductDto> next = productService.getProductPage("price_asc", page.getNextCursor(), 2, null, false, etag -> false);
+        assertEquals(1, next.getItems().size());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void getProductPage_WithCursorFromAnotherSort_ShouldThrowBadRequest() {
+        // Arrange
+        Product last = new Product("a1", "First", "Description", 10.0, 50, "user1");
+        String cursor = ProductCursor.encode(ProductSort.PRICE_ASC, last);
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> productService.getProductPage("quality_desc", cursor, 10, null, false, etag -> false));
+        assertThrows(BadRequestException.class, () -> productService.getProductPage("newest", "not-a-cursor", 10, null, false, etag -> false));
+        verify(productRepository, never()).findPage(any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void getProductPage_WithInvalidParameters_ShouldThrowBadRequest() {
+        assertThrows(BadRequestException.class, () -> productService.getProductPage("name", null, 10, null, false, etag -> false));
+        assertThrows(BadRequestException.class, () -> productService.getProductPage("newest", null, 1000, null, false, etag -> false));
+    }
+
+    @Test
+    void getProductPage_WithFacets_ShouldResolveSellerAndUseSameFilterForFacets() {
+        // Arrange
+        ProductFilter filter = new ProductFilter();
+        filter.setMinQuality(50);
+        filter.setSeller("seller@example.com");
+        when(userDirectoryClient.getUserByEmail("seller@example.com")).thenReturn(testUser);
+        when(productRepository.findPage(ProductSort.NEWEST, filter, null, null, 11)).thenReturn(List.of());
+        ProductFacetsDto facets = new ProductFacetsDto(List.of(), List.of(), 0);
+        when(productFacetIndex.facets(filter)).thenReturn(facets);
+
+        // Act
+        ProductPageDto<ProductDto> page = productService.getProductPage("newest", null, 10, filter, true, etag -> false);
+
+        // Assert
+        assertEquals("user1", filter.getSellerId());
+        assertSame(facets, page.getFacets());
+    }
+
+    @Test
+    void getProductPage_WhenETagMatches_ShouldReturnNullWithoutMapping() {
+        // Arrange: legacy products would need a User Service lookup to map
+        Product product = new Product("a1", "Chair", "Description", 10.0, 50, "user1");
+        when(productRepository.findPage(eq(ProductSort.NEWEST), any(ProductFilter.class), isNull(), isNull(), eq(21)))
+                .thenReturn(List.of(product));
+        List<String> seen = new ArrayList<>();
+
+        // Act
+        ProductPageDto<ProductDto> page = productService.getProductPage("newest", null, null, null, false, etag -> seen.add(etag));
+
+        // Assert
+        assertNull(page);
+        assertEquals(1, seen.size());
+        verifyNoInteractions(userDirectoryClient);
+    }
+
+    @Test
+    void getProductPage_ETagShouldChangeWithProductVersion() {
+        // Arrange
+        Product product = new Product("a1", "Chair", "Description", 10.0, 50, "user1");
+        product.setSellerEmail("seller@example.com");
+        when(productRepository.findPage(eq(ProductSort.NEWEST), any(ProductFilter.class), isNull(), isNull(), eq(21)))
+                .thenReturn(List.of(product));
+        List<String> etags = new ArrayList<>();
+
+        // Act
+        productService.getProductPage("newest", null, null, null, false, etags::add);
+        productService.getProductPage("newest", null, null, null, false, etags::add);
+        product.setVersion(2L);
+        productService.getProductPage("newest", null, null, null, false, etags::add);
+
+        // Assert
+        assertEquals(etags.get(0), etags.get(1));
+        assertNotEquals(etags.get(1), etags.get(2));
+    }
+
+    @Test
+    void getProductSummaryPage_ShouldUseProjectionWithoutSellerLookups() {
+        // Arrange: a legacy product without a seller snapshot
+        Product product = new Product("a1", "Chair", null, 10.0, 50, "user1");
+        product.setPrimaryImageId("m1");
+        when(productRepository.findSummaryPage(eq(ProductSort.NEWEST), any(ProductFilter.class), isNull(), isNull(),
+                eq(21))).thenReturn(List.of(product));
+
+        // Act
+        ProductPageDto<ProductSummaryDto> page = productService.getProductSummaryPage("newest", null, null, null,
+                false, etag -> false);
+
+        // Assert
+        ProductSummaryDto summary = page.getItems().get(0);
+        assertEquals("a1", summary.getId());
+        assertEquals("m1", summary.getPrimaryImageId());
+        assertNull(summary.getSellerName());
+        verify(productRepository, never()).findPage(any(), any(), any(), any(), anyInt());
+        verifyNoInteractions(userDirectoryClient);
+    }
+
+    @Test
+    void getProductSummaryPage_ETagShouldDifferFromFullView() {
+        // Arrange: the same products back both representations
+        Product product = new Product("a1", "Chair", "Description", 10.0, 50, "user1");
+        product.setSellerEmail("seller@example.com");
+        when(productRepository.findPage(eq(ProductSort.NEWEST), any(ProductFilter.class), isNull(), isNull(), eq(21)))
+                .thenReturn(List.of(product));
+        when(productRepository.findSummaryPage(eq(ProductSort.NEWEST), any(ProductFilter.class), isNull(), isNull(),
+                eq(21))).thenReturn(List.of(product));
+        List<String> etags = new ArrayList<>();
+
+        // Act
+        productService.getProductPage("newest", null, null, null, false, etags::add);
+        productService.getProductSummaryPage("newest", null, null, null, false, etags::add);
+
+        // Assert
+        assertNotEquals(etags.get(0), etags.get(1));
+    }
+
+    @Test
+    void getProductSummaries_ShouldResolveFilterAndUseProjection() {
+        // Arrange
+        ProductFilter filter = new ProductFilter();
+        filter.setSeller("seller@example.com");
+        when(userDirectoryClient.getUserByEmail("seller@example.com")).thenReturn(testUser);
+        when(productRepository.findFilteredSummaries(filter)).thenReturn(List.of());
+
+        // Act
+        List<ProductSummaryDto> result = productService.getProductSummaries(filter, etag -> false);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        assertEquals("user1", filter.getSellerId());
+        verify(productRepository, never()).findFiltered(any());
+    }
+
+    @Test
+    void updatePrimaryImage_ShouldAnnounceChangeAfterWriting() {
+        Product updated = new Product("p1", "Chair", "Description", 50.0, 5, "user1");
+        updated.setSellerEmail("seller@example.com");
+        updated.setPrimaryImageId("m1");
+        when(productRepository.updatePrimaryImage(eq("p1"), eq("m1"), any())).thenReturn(updated);
+
+        assertTrue(productService.updatePrimaryImage("p1", "m1"));
+
+        ArgumentCaptor<ProductEvent> event = ArgumentCaptor.forClass(ProductEvent.class);
+        InOrder order = inOrder(productRepository, productEventProducer);
+        order.verify(productRepository).updatePrimaryImage(eq("p1"), eq("m1"), any());
+        order.verify(productEventProducer).sendProductEvent(event.capture());
+        assertEquals(ProductEvent.EventType.PRODUCT_UPDATED, event.getValue().getEventType());
+        assertEquals("p1", event.getValue().getProductId());
+    }
+
+    @Test
+    void updatePrimaryImage_WhenUnchanged_ShouldNotAnnounce() {
+        when(productRepository.updatePrimaryImage(eq("p1"), eq("m1"), any())).thenReturn(null);
+
+        assertFalse(productService.updatePrimaryImage("p1", "m1"));
+        verifyNoInteractions(productEventProducer);
+    }
+
+    @Test
+    void updateSellerSnapshot_ShouldAnnounceEachProductAfterWriting() {
+        when(productRepository.updateSellerByUserId(eq("user1"), eq("new@example.com"), eq("New Name"), eq("a1"), any()))
+                .thenReturn(2L);
+        when(productRepository.findByUserId("user1")).thenReturn(List.of(
+                new Product("p1", "Chair", "Description", 50.0, 5, "user1"),
+                new Product("p2", "Table", "Description", 80.0, 5, "user1")));
+
+        assertEquals(2L, productService.updateSellerSnapshot("user1", "new@example.com", "New Name", "a1"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ProductEvent>> events = ArgumentCaptor.forClass(List.class);
+        InOrder order = inOrder(productRepository, productEventProducer);
+        order.verify(productRepository).updateSellerByUserId(eq("user1"), any(), any(), any(), any());
+        order.verify(productEventProducer).sendProductEvents(events.capture());
+        assertEquals(List.of("p1", "p2"), events.getValue().stream().map(ProductEvent::getProductId).toList());
+        assertTrue(events.getValue().stream()
+                .allMatch(event -> event.getEventType() == ProductEvent.EventType.PRODUCT_UPDATED));
+    }
+
+    @Test
+    void updateSellerSnapshot_WithoutProducts_ShouldNotAnnounce() {
+        when(productRepository.updateSellerByUserId(eq("user1"), any(), any(), any(), any())).thenReturn(0L);
+
+        productService.updateSellerSnapshot("user1", "new@example.com", "New Name", null);
+
+        verifyNoInteractions(productEventProducer);
+    }
+
+    @Test
+    void getProducts_WithoutFilters_ShouldReturnWholeCatalog() {
+        // Arrange
+        when(productRepository.findAll()).thenReturn(List.of());
+
+        // Act
+        productService.getProducts(new ProductFilter(), etag -> false);
+
+        // Assert
+        verify(productRepository, times(1)).findAll();
+        verify(productRepository, never()).findFiltered(any());
+    }
+
+    @Test
+    void getProducts_WithInvalidRanges_ShouldThrowBadRequest() {
+        ProductFilter prices = new ProductFilter();
+        prices.setMinPrice(100.0);
+        prices.setMaxPrice(10.0);
+        ProductFilter quality = new ProductFilter();
+        quality.setMaxQuality(101);
+
+        assertThrows(BadRequestException.class, () -> productService.getProducts(prices, etag -> false));
+        assertThrows(BadRequestException.class, () -> productService.getFacets(quality));
+    }
+
+    @Test
+    void getFacets_WithUnknownSeller_ShouldThrowNotFound() {
+        ProductFilter filter = new ProductFilter();
+        filter.setSeller("nobody@example.com");
+        when(userDirectoryClient.getUserByEmail("nobody@example.com")).thenReturn(null);
+
+        assertThrows(ResourceNotFoundException.class, () -> productService.getFacets(filter));
+        verifyNoInteractions(productFacetIndex);
+    }
+
+    @Test
+    void streamAllProducts_ShouldEmitEveryProductFromCursor() {
+        // Arrange: more products than fit in one mapping batch
+        List<Product> products = IntStream.range(0, 1200)
+                .mapToObj(i -> new Product("p" + i, "Product " + i, "Description", 10.0, 50, "user1"))
+                .toList();
+        products.forEach(product -> product.setSellerEmail("seller@example.com"));
+        when(productRepository.streamAllBy()).thenReturn(products.stream());
+
+        // Act
+        List<ProductDto> result = productService.streamAllProducts().collectList().block();
+
+        // Assert
+        assertNotNull(result);
+        assertEquals(1200, result.size());
+        assertEquals("p0", result.get(0).getId());
+        assertEquals("p1199", result.get(1199).getId());
+        verify(productRepository, times(1)).streamAllBy();
+    }
+
+    @Test
+    void searchProducts_ShouldReturnProductsInRankingOrder() {
+        // Arrange: the repository returns the matches in a different order
+        Product first = new Product("p1", "Red Chair", "Description", 10.0, 50, "user1");
+        Product second = new Product("p2", "Chair", "Red", 10.0, 50, "user1");
+        first.setSellerEmail("seller@example.com");
+        second.setSellerEmail("seller@example.com");
+        when(productSearchIndex.search("red chair", 20)).thenReturn(List.of("p1", "gone", "p2"));
+        when(productRepository.findAllById(List.of("p1", "gone", "p2"))).thenReturn(Arrays.asList(second, first));
+
+        // Act
+        List<ProductDto> result = productService.searchProducts("red chair", null);
+
+        // Assert: index order is kept and the stale id is skipped
+        assertEquals(List.of("p1", "p2"), result.stream().map(ProductDto::getId).toList());
+    }
+
+    @Test
+    void searchProductSummaries_ShouldUseProjectionInRankingOrder() {
+        // Arrange
+        Product first = new Product("p1", "Red Chair", null, 10.0, 50, "user1");
+        Product second = new Product("p2", "Chair", null, 10.0, 50, "user1");
+        when(productSearchIndex.search("chair", 20)).thenReturn(List.of("p2", "p1"));
+        when(productRepository.findSummariesById(List.of("p2", "p1"))).thenReturn(Arrays.asList(first, second));
+
+        // Act
+        List<ProductSummaryDto> result = productService.searchProductSummaries("chair", null);
+
+        // Assert
+        assertEquals(List.of("p2", "p1"), result.stream().map(ProductSummaryDto::getId).toList());
+        verify(productRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void searchProducts_WithInvalidParameters_ShouldThrowBadRequest() {
+        assertThrows(BadRequestException.class, () -> productService.searchProducts("  ", null));
+        assertThrows(BadRequestException.class, () -> productService.searchProducts("chair", 0));
+        verifyNoInteractions(productSearchIndex);
+    }
+
+    @Test
+    void buildIndexes_ShouldIndexEveryProduct() {
+        // Arrange
+        Product first = new Product("p1", "Red Chair", "Description", 10.0, 50, "user1");
+        Product second = new Product("p2", "Table", "Description", 10.0, 50, "user1");
+        when(productRepository.streamAllBy()).thenReturn(Stream.of(first, second));
+
+        // Act
+        productService.buildIndexes();
+
+        // Assert
+        verify(productSearchIndex).index(first);
+        verify(productSearchIndex).index(second);
+        verify(productFacetIndex).index(first);
+        verify(productFacetIndex).index(second);
+    }
+
     @Test
     void getProductById_WhenProductExists_ShouldReturnProduct() {
         // Arrange
@@ -112,6 +498,7 @@ class ProductServiceTest {
         assertEquals(testProduct.getId(), result.getId());
         assertEquals(testProduct.getName(), result.getName());
         assertEquals(testProduct.getPrice(), result.getPrice());
+        assertEquals("user1", result.getUserId());
         verify(productRepository, times(1)).findById("1");
     }
 
@@ -169,6 +556,88 @@ class ProductServiceTest {
         // verify(productEventProducer, times(1)).sendProductEvent(any());
     }
 
+    @Test
+    void createProducts_ShouldStoreValidItemsInOneWriteAndReportInvalidOnes() {
+        // Arrange
+        when(authentication.getName()).thenReturn("seller@example.com");
+        when(userDirectoryClient.getUserByEmail("seller@example.com")).thenReturn(testUser);
+        when(productRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Product> products = invocation.getArgument(0);
+            return IntStream.range(0, products.size())
+                    .mapToObj(i -> new Product("new-" + i, products.get(i).getName(),
+                            products.get(i).getDescription(), products.get(i).getPrice(),
+                            products.get(i).getQuality(), products.get(i).getUserId()))
+                    .toList();
+        });
+        ProductDto invalid = new ProductDto(null, "", "Description", 10.0, 50, null);
+        List<ProductDto> batch = List.of(testProductDto, invalid, testProductDto);
+
+        // Act
+        ProductBatchResultDto result = productService.createProducts(batch, authentication);
+
+        // Assert
+        assertEquals(2, result.getSucceeded());
+        assertEquals(1, result.getFailed());
+        assertEquals(List.of(ProductBatchItemDto.Status.CREATED, ProductBatchItemDto.Status.FAILED,
+                ProductBatchItemDto.Status.CREATED),
+                result.getItems().stream().map(ProductBatchItemDto::getStatus).toList());
+        assertEquals("new-1", result.getItems().get(2).getProduct().getId());
+        assertTrue(result.getItems().get(1).getErrors().contains("Product name cannot be empty"));
+
+        verify(userDirectoryClient, times(1)).getUserByEmail("seller@example.com");
+        verify(productRepository, times(1)).saveAll(anyList());
+        verify(productRepository, never()).save(any(Product.class));
+        ArgumentCaptor<List<ProductEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(productEventProducer, times(1)).sendProductEvents(events.capture());
+        verify(productEventProducer, never()).sendProductEvent(any());
+        assertEquals(2, events.getValue().size());
+    }
+
+    @Test
+    void updateProducts_ShouldOnlyUpdateExistingProductsOfTheCaller() {
+        // Arrange
+        when(authentication.getName()).thenReturn("seller@example.com");
+        when(userDirectoryClient.getUserByEmail("seller@example.com")).thenReturn(testUser);
+        Product own = new Product("p1", "Old Name", "Description", 50.0, 5, "user1");
+        own.setSellerEmail("seller@example.com");
+        Product foreign = new Product("p2", "Other", "Description", 50.0, 5, "user2");
+        when(productRepository.findAllById(anySet())).thenReturn(List.of(own, foreign));
+        Product stored = new Product("p1", "New Name", "Description", 60.0, 6, "user1");
+        stored.setVersion(4L);
+        when(productRepository.findAllById(List.of("p1"))).thenReturn(List.of(stored));
+
+        List<ProductDto> batch = List.of(
+                new ProductDto("p1", "New Name", "Description", 60.0, 6, null),
+                new ProductDto("p2", "Taken", "Description", 60.0, 6, null),
+                new ProductDto("missing", "Name", "Description", 60.0, 6, null),
+                new ProductDto(null, "Name", "Description", 60.0, 6, null));
+
+        // Act
+        ProductBatchResultDto result = productService.updateProducts(batch, authentication);
+
+        // Assert
+        assertEquals(1, result.getSucceeded());
+        assertEquals(ProductBatchItemDto.Status.UPDATED, result.getItems().get(0).getStatus());
+        assertEquals("New Name", result.getItems().get(0).getProduct().getName());
+        assertEquals(List.of("You don't have permission to modify this product"), result.getItems().get(1).getErrors());
+        assertEquals(List.of("Product not found with this id:missing"), result.getItems().get(2).getErrors());
+        assertEquals(List.of("Product id is required"), result.getItems().get(3).getErrors());
+        assertEquals(60.0, result.getItems().get(0).getProduct().getPrice());
+        assertEquals("Other", foreign.getName());
+        verify(productRepository, times(1)).updateDetails(eq(List.of(own)), any(Instant.class));
+        verify(productRepository, never()).saveAll(anyList());
+        verify(productEventProducer, times(1)).sendProductEvents(anyList());
+    }
+
+    @Test
+    void createProducts_WithEmptyOrOversizedBatch_ShouldThrowBadRequest() {
+        List<ProductDto> oversized = Collections.nCopies(1001, testProductDto);
+
+        assertThrows(BadRequestException.class, () -> productService.createProducts(List.of(), authentication));
+        assertThrows(BadRequestException.class, () -> productService.createProducts(oversized, authentication));
+        verifyNoInteractions(productRepository);
+    }
+
     @Test
     void deleteProduct_WhenProductExists_ShouldDeleteProduct() {
         // Arrange
@@ -179,6 +648,62 @@ class ProductServiceTest {
         // You may need to adjust based on actual implementation
     }
 
+    @Test
+    void deleteProduct_WithUserIdInToken_ShouldCheckOwnershipWithoutLookup() {
+        // Arrange
+        Product product = new Product("p1", "Chair", "Description", 50.0, 5, "user1");
+        product.setSellerEmail("seller@example.com");
+        when(productRepository.findById("p1")).thenReturn(Optional.of(product));
+
+        // Act
+        productService.deleteProduct("p1", tokenAuthentication("seller@example.com", "user1", "ROLE_SELLER"));
+
+        // Assert
+        verify(productRepository, times(1)).deleteById("p1");
+        verifyNoInteractions(userDirectoryClient);
+    }
+
+    @Test
+    void deleteProduct_WithAnotherUserIdInToken_ShouldThrowForbidden() {
+        // Arrange
+        Product product = new Product("p1", "Chair", "Description", 50.0, 5, "user1");
+        when(productRepository.findById("p1")).thenReturn(Optional.of(product));
+        Authentication other = tokenAuthentication("other@example.com", "user2", "ROLE_SELLER");
+
+        // Act & Assert
+        assertThrows(ForbiddenException.class, () -> productService.deleteProduct("p1", other));
+        verify(productRepository, never()).deleteById(anyString());
+        verifyNoInteractions(userDirectoryClient);
+    }
+
+    @Test
+    void getMyProducts_WithUserIdInToken_ShouldNotCallUserService() {
+        // Arrange
+        when(productRepository.findByUserId("user1")).thenReturn(List.of());
+
+        // Act
+        List<ProductDto> result = productService.getMyProducts(
+                tokenAuthentication("seller@example.com", "user1", "ROLE_SELLER"), etag -> false);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(userDirectoryClient);
+    }
+
+    @Test
+    void getMyProducts_WithLegacyToken_ShouldResolveUserId() {
+        // Arrange
+        when(authentication.getName()).thenReturn("seller@example.com");
+        when(userDirectoryClient.getUserByEmail("seller@example.com")).thenReturn(testUser);
+        when(productRepository.findByUserId("user1")).thenReturn(List.of());
+
+        // Act
+        productService.getMyProducts(authentication, etag -> false);
+
+        // Assert
+        verify(productRepository, times(1)).findByUserId("user1");
+    }
+
     @Test
     void updateProduct_ShouldUpdateProductFields() {
         // Arrange
@@ -195,6 +720,45 @@ class ProductServiceTest {
         // Actual test would need to mock that behavior
     }
 
+    @Test
+    void updateProduct_ShouldWriteOnlyEditedFieldsAndKeepStoredPrimaryImage() {
+        // Arrange
+        Product existing = new Product("p1", "Old Name", "Description", 50.0, 5, "user1");
+        existing.setSellerEmail("seller@example.com");
+        existing.setVersion(2L);
+        when(productRepository.findById("p1")).thenReturn(Optional.of(existing));
+        // A media event set a new primary image after the product was read
+        Product stored = new Product("p1", "New Name", "Description", 60.0, 6, "user1");
+        stored.setSellerEmail("seller@example.com");
+        stored.setPrimaryImageId("m2");
+        stored.setVersion(4L);
+        when(productRepository.updateDetails(eq(existing), any(Instant.class))).thenReturn(stored);
+
+        // Act
+        ProductDto result = productService.updateProduct("p1",
+                new ProductDto("p1", "New Name", "Description", 60.0, 6, null),
+                tokenAuthentication("seller@example.com", "user1", "ROLE_SELLER"));
+
+        // Assert
+        assertEquals("New Name", result.getName());
+        assertEquals("m2", result.getPrimaryImageId());
+        verify(productRepository, never()).save(any(Product.class));
+    }
+
+    @Test
+    void updateProduct_WhenDeletedMeanwhile_ShouldThrowNotFound() {
+        // Arrange
+        Product existing = new Product("p1", "Old Name", "Description", 50.0, 5, "user1");
+        when(productRepository.findById("p1")).thenReturn(Optional.of(existing));
+        when(productRepository.updateDetails(eq(existing), any(Instant.class))).thenReturn(null);
+        ProductDto update = new ProductDto("p1", "New Name", "Description", 60.0, 6, null);
+        Authentication seller = tokenAuthentication("seller@example.com", "user1", "ROLE_SELLER");
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> productService.updateProduct("p1", update, seller));
+        verify(productEventProducer, never()).sendProductEvent(any());
+    }
+
     @Test
     void verifyProductValidation_PriceShouldBePositive() {
         // Arrange
@@ -222,4 +786,11 @@ class ProductServiceTest {
         // Assert
         assertTrue(invalidProduct.getQuality() < 0, "Quality validation should catch negative quality");
     }
-}
\ No newline at end of file
+
+    // What JwtAuthenticationFilter installs for a token carrying the user id
+    private Authentication tokenAuthentication(String email, String userId, String role) {
+        List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(role));
+        return new UsernamePasswordAuthenticationToken(new AuthenticatedUser(email, userId, authorities), null,
+                authorities);
+    }
+}
@@ -51,7 +51,7 @@ public class AuthController {
             throw new UnauthorizedException("Invalid email or password");
         }
 
-        String token = jwtUtil.generateToken(user.getEmail(), user.getRole());
+        String token = jwtUtil.generateToken(user.getEmail(), user.getRole(), user.getId());
 
         // Get user as DTO to return (without password)
         UserDto userDto = userService.getUserByEmail(user.getEmail());
@@ -87,7 +87,7 @@ public class AuthController {
         }
 
         UserDto createdUser = userService.createUser(userDto);
-        String token = jwtUtil.generateToken(createdUser.getEmail(), createdUser.getRole());
+        String token = jwtUtil.generateToken(createdUser.getEmail(), createdUser.getRole(), createdUser.getId());
 
         // Create HttpOnly cookie for the JWT token
         ResponseCookie jwtCookie = ResponseCookie.from("jwt", token)
@@ -12,6 +12,8 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/users")
@@ -38,6 +40,12 @@ public class UserController {
         return userService.getUserByEmail(email);
     }
 
+    @PostMapping("/batch")
+    public Map<String, String> getUserEmailsByIds(@RequestBody Set<String> ids) {
+        // Internal endpoint: resolves many user ids to emails in one call (id -> email)
+        return userService.getUserEmailsByIds(ids);
+    }
+
     @GetMapping("/me")
     @PreAuthorize("isAuthenticated()")
     public UserDto getCurrentUser(Authentication authentication) {
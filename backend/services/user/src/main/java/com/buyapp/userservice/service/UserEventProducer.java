@@ -4,11 +4,13 @@ import com.buyapp.common.event.UserEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
 public class UserEventProducer {
@@ -20,6 +22,11 @@ public class UserEventProducer {
     @Value("${spring.kafka.topic.user-events}")
     private String userEventsTopic;
 
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final Executor virtualCallbackExecutor = new VirtualThreadTaskExecutor("kafka-callback-");
+
     public UserEventProducer(KafkaTemplate<String, UserEvent> kafkaTemplate) {
         this.kafkaTemplate = kafkaTemplate;
     }
@@ -30,13 +37,15 @@ public class UserEventProducer {
         CompletableFuture<SendResult<String, UserEvent>> future = kafkaTemplate.send(userEventsTopic, event.getUserId(),
                 event);
 
-        future.whenComplete((result, ex) -> {
+        // Without virtual threads the callback stays on the producer's I/O thread
+        Executor callbackExecutor = virtualThreads ? virtualCallbackExecutor : Runnable::run;
+        future.whenCompleteAsync((result, ex) -> {
             if (ex == null) {
                 logger.info("Successfully sent user event: {} with offset: {}",
                         event.getEventType(), result.getRecordMetadata().offset());
             } else {
                 logger.error("Failed to send user event: {}", event.getEventType(), ex);
             }
-        });
+        }, callbackExecutor);
     }
 }
@@ -14,7 +14,10 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -59,6 +62,16 @@ public class UserService {
         return toDto(user);
     }
 
+    /**
+     * Resolve many user ids to emails with a single query (used by Product Service
+     * listings). Unknown ids are simply absent from the result.
+     */
+    public Map<String, String> getUserEmailsByIds(Set<String> ids) {
+        Map<String, String> emails = new HashMap<>();
+        userRepository.findAllById(ids).forEach(user -> emails.put(user.getId(), user.getEmail()));
+        return emails;
+    }
+
     public UserDto createUser(UserDto userDto) {
         if (userRepository.findByEmail(userDto.getEmail()).isPresent()) {
             throw new BadRequestException("User with email " + userDto.getEmail() + " already exists");
@@ -99,6 +112,7 @@ public class UserService {
             user.setPassword(passwordEncoder.encode(userDto.getPassword()));
         }
         User updated = userRepository.save(user);
+        publishUserUpdated(updated);
         return toDto(updated);
     }
 
@@ -129,7 +143,22 @@ public class UserService {
 
         // Set avatar to null if empty string is passed
         user.setAvatar(avatarId != null && !avatarId.isEmpty() ? avatarId : null);
-        userRepository.save(user);
+        User updated = userRepository.save(user);
+        publishUserUpdated(updated);
+    }
+
+    // Publish USER_UPDATED so Product Service can refresh its seller snapshots
+    private void publishUserUpdated(User user) {
+        if ("seller".equalsIgnoreCase(user.getRole())) {
+            UserEvent event = new UserEvent(
+                    UserEvent.EventType.USER_UPDATED,
+                    user.getId(),
+                    user.getEmail(),
+                    user.getRole(),
+                    user.getName(),
+                    user.getAvatar());
+            userEventProducer.sendUserEvent(event);
+        }
     }
 
     // Helper methods
@@ -1,6 +1,7 @@
 package com.buyapp.userservice.service;
 
 import com.buyapp.common.dto.UserDto;
+import com.buyapp.common.event.UserEvent;
 import com.buyapp.common.exception.BadRequestException;
 import com.buyapp.common.exception.ResourceNotFoundException;
 import com.buyapp.userservice.model.User;
@@ -16,11 +17,14 @@ import org.springframework.web.reactive.function.client.WebClient;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -154,6 +158,56 @@ class UserServiceTest {
         });
     }
 
+    @Test
+    void getUserEmailsByIds_ShouldResolveKnownIdsInOneQuery() {
+        // Arrange
+        User other = new User("2", "other", "other@example.com", "encodedPassword", null);
+        User known = new User("1", "testuser", "test@example.com", "encodedPassword", null);
+        Set<String> ids = Set.of("1", "2", "999");
+        when(userRepository.findAllById(ids)).thenReturn(Arrays.asList(known, other));
+
+        // Act
+        Map<String, String> result = userService.getUserEmailsByIds(ids);
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals("test@example.com", result.get("1"));
+        assertEquals("other@example.com", result.get("2"));
+        assertFalse(result.containsKey("999"));
+        verify(userRepository, times(1)).findAllById(ids);
+    }
+
+    @Test
+    void updateUserAvatar_ForSeller_ShouldPublishUserUpdated() {
+        // Arrange
+        User seller = new User("1", "seller", "seller@example.com", "encodedPassword", null);
+        seller.setRole("seller");
+        when(userRepository.findById("1")).thenReturn(Optional.of(seller));
+        when(userRepository.save(seller)).thenReturn(seller);
+
+        // Act
+        userService.updateUserAvatar("1", "avatar-1");
+
+        // Assert
+        verify(userEventProducer, times(1)).sendUserEvent(argThat(event ->
+                event.getEventType() == UserEvent.EventType.USER_UPDATED
+                        && "avatar-1".equals(event.getAvatar())
+                        && "seller".equals(event.getName())));
+    }
+
+    @Test
+    void updateUserAvatar_ForClient_ShouldNotPublishEvent() {
+        // Arrange
+        when(userRepository.findById("1")).thenReturn(Optional.of(testUser));
+        when(userRepository.save(testUser)).thenReturn(testUser);
+
+        // Act
+        userService.updateUserAvatar("1", "avatar-1");
+
+        // Assert
+        verify(userEventProducer, never()).sendUserEvent(any());
+    }
+
     @Test
     void createUser_WithValidData_ShouldCreateUser() {
         // Arrange
@@ -0,0 +1,146 @@
+package com.buyapp.common.client;
+
+import com.buyapp.common.dto.UserDto;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Client for User Service lookups shared by the other services.
+ *
+ * Users are kept in a bounded near-cache keyed both by id and by email, with a
+ * TTL as an upper bound on staleness. Concurrent lookups of the same key share
+ * a single in-flight request. Services should call {@link #invalidate} when
+ * they see a user event so that changes are picked up before the TTL expires.
+ *
+ * Every request carries a deadline. Lookup failures (unknown user, timeout,
+ * User Service unavailable) are reported as null and are never cached.
+ */
+public class UserDirectoryClient {
+
+    private static final String USER_SERVICE_URL = "http://user-service";
+
+    private final WebClient webClient;
+    private final Duration requestTimeout;
+    private final AsyncCache<String, UserDto> usersById;
+    private final AsyncCache<String, UserDto> usersByEmail;
+
+    public UserDirectoryClient(WebClient.Builder webClientBuilder, long maximumSize, Duration ttl,
+            Duration requestTimeout) {
+        this.webClient = webClientBuilder.clone().baseUrl(USER_SERVICE_URL).build();
+        this.requestTimeout = requestTimeout;
+        this.usersById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .buildAsync();
+        this.usersByEmail = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .buildAsync();
+    }
+
+    public UserDto getUserById(String id) {
+        return id != null ? join(findUserById(id)) : null;
+    }
+
+    public UserDto getUserByEmail(String email) {
+        return email != null ? join(findUserByEmail(email)) : null;
+    }
+
+    // Non-blocking lookups, for callers composing remote calls
+    public CompletableFuture<UserDto> findUserById(String id) {
+        return usersById.get(id, (key, executor) -> fetch("/users/{id}", key)
+                .thenApply(user -> {
+                    usersByEmail.put(user.getEmail(), CompletableFuture.completedFuture(user));
+                    return user;
+                }));
+    }
+
+    public CompletableFuture<UserDto> findUserByEmail(String email) {
+        return usersByEmail.get(email, (key, executor) -> fetch("/users/email/{email}", key)
+                .thenApply(user -> {
+                    usersById.put(user.getId(), CompletableFuture.completedFuture(user));
+                    return user;
+                }));
+    }
+
+    /**
+     * Resolve many user ids to emails. Cached users are answered locally and the
+     * rest are fetched with one batch request. Unknown ids are absent from the
+     * result, and an unavailable User Service yields only the cached entries.
+     */
+    public Map<String, String> getUserEmailsByIds(Collection<String> ids) {
+        Map<String, String> emails = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String id : ids) {
+            CompletableFuture<UserDto> cached = usersById.getIfPresent(id);
+            if (cached != null && cached.isDone() && !cached.isCompletedExceptionally()) {
+                emails.put(id, cached.join().getEmail());
+            } else {
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            try {
+                Map<String, String> fetched = webClient.post()
+                        .uri("/users/batch")
+                        .bodyValue(missing)
+                        .retrieve()
+                        .bodyToMono(new ParameterizedTypeReference<Map<String, String>>() {
+                        })
+                        .timeout(requestTimeout)
+                        .block();
+                if (fetched != null) {
+                    emails.putAll(fetched);
+                }
+            } catch (Exception e) {
+                // Fall back to what the cache could answer
+            }
+        }
+        return emails;
+    }
+
+    /**
+     * Drop a user from the near-cache, under both the current and any previously
+     * cached email.
+     */
+    public void invalidate(String userId, String email) {
+        if (userId != null) {
+            CompletableFuture<UserDto> cached = usersById.getIfPresent(userId);
+            if (cached != null && cached.isDone() && !cached.isCompletedExceptionally()) {
+                usersByEmail.synchronous().invalidate(cached.join().getEmail());
+            }
+            usersById.synchronous().invalidate(userId);
+        }
+        if (email != null) {
+            usersByEmail.synchronous().invalidate(email);
+        }
+    }
+
+    private CompletableFuture<UserDto> fetch(String uri, String key) {
+        return webClient.get()
+                .uri(uri, key)
+                .retrieve()
+                .bodyToMono(UserDto.class)
+                .timeout(requestTimeout)
+                .toFuture();
+    }
+
+    private UserDto join(CompletableFuture<UserDto> future) {
+        try {
+            return future.join();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.buyapp.common.dto;
+
+public class FacetBucketDto {
+    private String label;
+
+    private Double from; // Inclusive lower bound, null when unbounded
+
+    private Double to; // Exclusive upper bound, null when unbounded
+
+    private long count;
+
+    // Constructors
+    public FacetBucketDto() {
+    }
+
+    public FacetBucketDto(String label, Double from, Double to, long count) {
+        this.label = label;
+        this.from = from;
+        this.to = to;
+        this.count = count;
+    }
+
+    // Getters and Setters
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(String label) {
+        this.label = label;
+    }
+
+    public Double getFrom() {
+        return from;
+    }
+
+    public void setFrom(Double from) {
+        this.from = from;
+    }
+
+    public Double getTo() {
+        return to;
+    }
+
+    public void setTo(Double to) {
+        this.to = to;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,61 @@
+package com.buyapp.common.dto;
+
+import java.util.List;
+
+public class ProductBatchItemDto {
+    public enum Status {
+        CREATED, UPDATED, FAILED
+    }
+
+    private int index; // Position of the item in the request
+
+    private Status status;
+
+    private ProductDto product; // The stored product, null when the item failed
+
+    private List<String> errors;
+
+    // Constructors
+    public ProductBatchItemDto() {
+    }
+
+    public ProductBatchItemDto(int index, Status status, ProductDto product, List<String> errors) {
+        this.index = index;
+        this.status = status;
+        this.product = product;
+        this.errors = errors;
+    }
+
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public ProductDto getProduct() {
+        return product;
+    }
+
+    public void setProduct(ProductDto product) {
+        this.product = product;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+}
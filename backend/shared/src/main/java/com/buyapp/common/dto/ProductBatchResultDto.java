@@ -0,0 +1,48 @@
+package com.buyapp.common.dto;
+
+import java.util.List;
+
+public class ProductBatchResultDto {
+    private int succeeded;
+
+    private int failed;
+
+    private List<ProductBatchItemDto> items; // One entry per request item, in request order
+
+    // Constructors
+    public ProductBatchResultDto() {
+    }
+
+    public ProductBatchResultDto(List<ProductBatchItemDto> items) {
+        this.items = items;
+        this.failed = (int) items.stream()
+                .filter(item -> item.getStatus() == ProductBatchItemDto.Status.FAILED)
+                .count();
+        this.succeeded = items.size() - failed;
+    }
+
+    // Getters and Setters
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<ProductBatchItemDto> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ProductBatchItemDto> items) {
+        this.items = items;
+    }
+}
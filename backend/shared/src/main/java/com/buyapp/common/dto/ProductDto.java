@@ -26,6 +26,14 @@ public class ProductDto {
 
     private String user; // Email of the owner
 
+    private String userId; // Id of the owner
+
+    private String sellerName;
+
+    private String sellerAvatar; // Avatar id of the owner, if any
+
+    private String primaryImageId; // First image of the product, if any
+
     // Constructors
     public ProductDto() {
     }
@@ -87,4 +95,36 @@ public class ProductDto {
     public void setUser(String user) {
         this.user = user;
     }
-}
\ No newline at end of file
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getSellerName() {
+        return sellerName;
+    }
+
+    public void setSellerName(String sellerName) {
+        this.sellerName = sellerName;
+    }
+
+    public String getSellerAvatar() {
+        return sellerAvatar;
+    }
+
+    public void setSellerAvatar(String sellerAvatar) {
+        this.sellerAvatar = sellerAvatar;
+    }
+
+    public String getPrimaryImageId() {
+        return primaryImageId;
+    }
+
+    public void setPrimaryImageId(String primaryImageId) {
+        this.primaryImageId = primaryImageId;
+    }
+}
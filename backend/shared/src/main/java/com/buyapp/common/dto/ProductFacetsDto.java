@@ -0,0 +1,46 @@
+package com.buyapp.common.dto;
+
+import java.util.List;
+
+public class ProductFacetsDto {
+    private List<FacetBucketDto> price;
+
+    private List<FacetBucketDto> quality;
+
+    private long total; // Products matching all filters
+
+    // Constructors
+    public ProductFacetsDto() {
+    }
+
+    public ProductFacetsDto(List<FacetBucketDto> price, List<FacetBucketDto> quality, long total) {
+        this.price = price;
+        this.quality = quality;
+        this.total = total;
+    }
+
+    // Getters and Setters
+    public List<FacetBucketDto> getPrice() {
+        return price;
+    }
+
+    public void setPrice(List<FacetBucketDto> price) {
+        this.price = price;
+    }
+
+    public List<FacetBucketDto> getQuality() {
+        return quality;
+    }
+
+    public void setQuality(List<FacetBucketDto> quality) {
+        this.quality = quality;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+}
@@ -0,0 +1,48 @@
+package com.buyapp.common.dto;
+
+import java.util.List;
+
+/**
+ * One keyset page of products, as {@link ProductSummaryDto} or {@link ProductDto}.
+ */
+public class ProductPageDto<T> {
+    private List<T> items;
+
+    private String nextCursor; // Opaque cursor for the next page, null on the last page
+
+    private ProductFacetsDto facets; // Only when requested
+
+    // Constructors
+    public ProductPageDto() {
+    }
+
+    public ProductPageDto(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public ProductFacetsDto getFacets() {
+        return facets;
+    }
+
+    public void setFacets(ProductFacetsDto facets) {
+        this.facets = facets;
+    }
+}
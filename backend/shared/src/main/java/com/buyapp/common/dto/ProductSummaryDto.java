@@ -0,0 +1,82 @@
+package com.buyapp.common.dto;
+
+/**
+ * What a catalog grid shows for a product. Listings return this by default;
+ * the full {@link ProductDto} is served on detail.
+ */
+public class ProductSummaryDto {
+    private String id;
+
+    private String name;
+
+    private Double price;
+
+    private Integer quality;
+
+    private String primaryImageId; // First image of the product, if any
+
+    private String sellerName;
+
+    // Constructors
+    public ProductSummaryDto() {
+    }
+
+    public ProductSummaryDto(String id, String name, Double price, Integer quality, String primaryImageId,
+            String sellerName) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.quality = quality;
+        this.primaryImageId = primaryImageId;
+        this.sellerName = sellerName;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+
+    public Integer getQuality() {
+        return quality;
+    }
+
+    public void setQuality(Integer quality) {
+        this.quality = quality;
+    }
+
+    public String getPrimaryImageId() {
+        return primaryImageId;
+    }
+
+    public void setPrimaryImageId(String primaryImageId) {
+        this.primaryImageId = primaryImageId;
+    }
+
+    public String getSellerName() {
+        return sellerName;
+    }
+
+    public void setSellerName(String sellerName) {
+        this.sellerName = sellerName;
+    }
+}
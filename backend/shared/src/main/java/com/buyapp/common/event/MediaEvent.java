@@ -17,6 +17,8 @@ public class MediaEvent implements Serializable {
     private String contentType;
     private Long fileSize;
     private String uploadedBy;
+    // The product's first remaining image after this change, null when it has none
+    private String primaryMediaId;
     private LocalDateTime timestamp;
 
     public MediaEvent() {
@@ -100,6 +102,14 @@ public class MediaEvent implements Serializable {
         this.uploadedBy = uploadedBy;
     }
 
+    public String getPrimaryMediaId() {
+        return primaryMediaId;
+    }
+
+    public void setPrimaryMediaId(String primaryMediaId) {
+        this.primaryMediaId = primaryMediaId;
+    }
+
     public LocalDateTime getTimestamp() {
         return timestamp;
     }
@@ -118,6 +128,7 @@ public class MediaEvent implements Serializable {
                 ", contentType='" + contentType + '\'' +
                 ", fileSize=" + fileSize +
                 ", uploadedBy='" + uploadedBy + '\'' +
+                ", primaryMediaId='" + primaryMediaId + '\'' +
                 ", timestamp=" + timestamp +
                 '}';
     }
@@ -16,6 +16,8 @@ public class UserEvent implements Serializable {
     private String userId;
     private String email;
     private String role;
+    private String name;
+    private String avatar;
     private LocalDateTime timestamp;
 
     // Constructors
@@ -30,6 +32,16 @@ public class UserEvent implements Serializable {
         this.timestamp = LocalDateTime.now();
     }
 
+    public UserEvent(EventType eventType, String userId, String email, String role, String name, String avatar) {
+        this.eventType = eventType;
+        this.userId = userId;
+        this.email = email;
+        this.role = role;
+        this.name = name;
+        this.avatar = avatar;
+        this.timestamp = LocalDateTime.now();
+    }
+
     // Getters and Setters
     public EventType getEventType() {
         return eventType;
@@ -63,6 +75,22 @@ public class UserEvent implements Serializable {
         this.role = role;
     }
 
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getAvatar() {
+        return avatar;
+    }
+
+    public void setAvatar(String avatar) {
+        this.avatar = avatar;
+    }
+
     public LocalDateTime getTimestamp() {
         return timestamp;
     }
@@ -78,6 +106,8 @@ public class UserEvent implements Serializable {
                 ", userId='" + userId + '\'' +
                 ", email='" + email + '\'' +
                 ", role='" + role + '\'' +
+                ", name='" + name + '\'' +
+                ", avatar='" + avatar + '\'' +
                 ", timestamp=" + timestamp +
                 '}';
     }
@@ -0,0 +1,37 @@
+package com.buyapp.common.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Principal of a JWT authenticated request. Besides the email and roles it
+ * carries the user id from the token, so services can check ownership
+ * without asking the User Service.
+ */
+public class AuthenticatedUser extends User {
+
+    private final String userId;
+
+    public AuthenticatedUser(String email, String userId, Collection<? extends GrantedAuthority> authorities) {
+        super(email, "", authorities); // Password not needed for JWT auth
+        this.userId = userId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * The user id of the authenticated principal, or null when it is unknown,
+     * as for tokens issued before the id was embedded.
+     */
+    public static String userIdOf(Authentication authentication) {
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.getUserId();
+        }
+        return null;
+    }
+}
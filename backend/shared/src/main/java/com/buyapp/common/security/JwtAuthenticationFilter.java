@@ -73,8 +73,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             UserDetails userDetails = userDetailsService.loadUserByUsername(username);
             if (jwtUtil.isTokenValid(token, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails,
-                        null, userDetails.getAuthorities());
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        principal(token, userDetails), null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
@@ -82,6 +82,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    // Exposes the user id from the token when the UserDetailsService did not already
+    private UserDetails principal(String token, UserDetails userDetails) {
+        if (userDetails instanceof AuthenticatedUser) {
+            return userDetails;
+        }
+        String userId = jwtUtil.extractUserId(token);
+        return userId != null
+                ? new AuthenticatedUser(userDetails.getUsername(), userId, userDetails.getAuthorities())
+                : userDetails;
+    }
+
     private boolean isPublicEndpoint(String path, String method) {
         // Auth endpoints (any method)
         if (path.startsWith("/auth/")) {
@@ -18,6 +18,8 @@ import io.jsonwebtoken.security.Keys;
 
 @Component
 public class JwtUtil {
+    public static final String USER_ID_CLAIM = "userId";
+
     @Value("${application.security.jwt.secret-key}")
     private String secretKey;
 
@@ -45,8 +47,16 @@ public class JwtUtil {
     }
 
     public String generateToken(String email, String role) {
+        return generateToken(email, role, null);
+    }
+
+    // The user id lets other services check ownership without a User Service lookup
+    public String generateToken(String email, String role, String userId) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("role", role.toUpperCase());
+        if (userId != null) {
+            claims.put(USER_ID_CLAIM, userId);
+        }
 
         return Jwts.builder()
                 .claims(claims)
@@ -61,6 +71,11 @@ public class JwtUtil {
         return extractClaim(token, claims -> claims.get("role", String.class));
     }
 
+    // Null for tokens issued before the user id was embedded
+    public String extractUserId(String token) {
+        return extractClaim(token, claims -> claims.get(USER_ID_CLAIM, String.class));
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -32,8 +32,23 @@ public class JwtTestUtil {
      * @return JWT token string
      */
     public static String generateToken(String email, String role) {
+        return generateToken(email, role, null);
+    }
+
+    /**
+     * Generate a JWT token with email, role and user id
+     *
+     * @param email  User email
+     * @param role   User role (CLIENT or SELLER)
+     * @param userId User id, or null for a token without one
+     * @return JWT token string
+     */
+    public static String generateToken(String email, String role, String userId) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("role", role.toUpperCase());
+        if (userId != null) {
+            claims.put("userId", userId);
+        }
 
         return Jwts.builder()
                 .claims(claims)
@@ -47,7 +47,7 @@ describe('HomeComponent', () => {
       'isSeller',
     ]);
     const productServiceSpy = jasmine.createSpyObj('ProductService', ['getAllProducts']);
-    const mediaServiceSpy = jasmine.createSpyObj('MediaService', ['getMediaByProduct']);
+    const mediaServiceSpy = jasmine.createSpyObj('MediaService', ['getMediaByProducts']);
 
     await TestBed.configureTestingModule({
       imports: [HomeComponent, RouterModule.forRoot([])],
@@ -67,7 +67,7 @@ describe('HomeComponent', () => {
     authService.isLoggedIn.and.returnValue(true);
     authService.isSeller.and.returnValue(false);
     productService.getAllProducts.and.returnValue(of(mockProducts));
-    mediaService.getMediaByProduct.and.returnValue(of([]));
+    mediaService.getMediaByProducts.and.returnValue(of({}));
   });
 
   beforeEach(() => {
@@ -53,26 +53,20 @@ export class HomeComponent implements OnInit {
   }
 
   private loadProductImages(): void {
-    const imagePromises = this.featuredProducts.map((product) => {
-      if (!product.id) return Promise.resolve();
-
-      return this.mediaService
-        .getMediaByProduct(product.id)
-        .toPromise()
-        .then((media) => {
-          if (media && media.length > 0) {
-            this.productImages[product.id!] = media.map((m) =>
-              this.mediaService.getMediaFile(m.id!)
-            );
+    const productIds = this.featuredProducts.filter((product) => product.id).map((product) => product.id!);
+    this.mediaService.getMediaByProducts(productIds).subscribe({
+      next: (mediaByProduct) => {
+        Object.entries(mediaByProduct).forEach(([productId, media]) => {
+          if (media.length > 0) {
+            this.productImages[productId] = media.map((m) => this.mediaService.getMediaFile(m.id!));
           }
-        })
-        .catch((error) => {
-          console.error(`Failed to load media for product ${product.id}:`, error);
         });
-    });
-
-    Promise.all(imagePromises).finally(() => {
-      this.isLoading = false;
+        this.isLoading = false;
+      },
+      error: (error) => {
+        console.error('Failed to load product media:', error);
+        this.isLoading = false;
+      },
     });
   }
 
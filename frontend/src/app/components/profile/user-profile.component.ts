@@ -80,21 +80,20 @@ export class UserProfileComponent implements OnInit {
   }
 
   loadProductImages(): void {
-    this.sellerProducts.forEach((product) => {
-      if (product.id) {
-        this.mediaService.getMediaByProduct(product.id).subscribe({
-          next: (media: any) => {
-            if (media && media.length > 0) {
-              // Convert all media to URLs
-              const imageUrls = media.map((m: any) => this.mediaService.getMediaFile(m.id));
-              this.productImages.set(product.id!, imageUrls);
-            }
-          },
-          error: () => {
-            // Silently ignore - product may not have images
-          },
+    const productIds = this.sellerProducts.filter((product) => product.id).map((product) => product.id!);
+    this.mediaService.getMediaByProducts(productIds).subscribe({
+      next: (mediaByProduct) => {
+        Object.entries(mediaByProduct).forEach(([productId, media]) => {
+          if (media.length > 0) {
+            // Convert all media to URLs
+            const imageUrls = media.map((m) => this.mediaService.getMediaFile(m.id!));
+            this.productImages.set(productId, imageUrls);
+          }
         });
-      }
+      },
+      error: () => {
+        // Silently ignore - images are optional
+      },
     });
   }
 
@@ -78,12 +78,7 @@ export class SellerDashboardComponent implements OnInit {
       next: (products) => {
         this.myProducts = products;
         this.loading = false;
-        // Load media for each product
-        products.forEach((product) => {
-          if (product.id) {
-            this.loadProductMedia(product.id);
-          }
-        });
+        this.loadProductMedia(products.filter((product) => product.id).map((product) => product.id!));
       },
       error: (error) => {
         console.error('Error loading products:', error);
@@ -93,13 +88,14 @@ export class SellerDashboardComponent implements OnInit {
     });
   }
 
-  loadProductMedia(productId: string): void {
-    this.mediaService.getMediaByProduct(productId).subscribe({
-      next: (media) => {
-        this.productMedia.set(productId, media);
+  // One batch request for all products instead of one per product
+  loadProductMedia(productIds: string[]): void {
+    this.mediaService.getMediaByProducts(productIds).subscribe({
+      next: (mediaByProduct) => {
+        Object.entries(mediaByProduct).forEach(([productId, media]) => this.productMedia.set(productId, media));
       },
       error: (error) => {
-        console.error('Error loading media for product:', productId, error);
+        console.error('Error loading product media:', error);
       },
     });
   }
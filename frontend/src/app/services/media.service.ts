@@ -1,6 +1,6 @@
 import { HttpClient, HttpHeaders } from '@angular/common/http';
 import { Injectable } from '@angular/core';
-import { Observable } from 'rxjs';
+import { forkJoin, map, Observable, of } from 'rxjs';
 import { environment } from '../../environments/environments';
 import { Avatar, Media } from '../models/ecommerce.model';
 import { AuthService } from './auth.service';
@@ -10,19 +10,21 @@ import { AuthService } from './auth.service';
 })
 export class MediaService {
   private apiUrl = `${environment.apiUrl}/media`;
+  // Largest batch the media service accepts
+  private static readonly MAX_BATCH_PRODUCTS = 100;
 
   constructor(private http: HttpClient, private authService: AuthService) {}
 
+  // Sent as the raw body so the server streams it to disk; it detects the format itself
   uploadMedia(file: File, productId: string): Observable<Media> {
-    const formData = new FormData();
-    formData.append('file', file);
-
     const headers = new HttpHeaders({
       Authorization: `Bearer ${localStorage.getItem('token')}`,
+      'Content-Type': 'application/octet-stream',
     });
 
-    return this.http.post<Media>(`${this.apiUrl}/upload/${productId}`, formData, {
+    return this.http.post<Media>(`${this.apiUrl}/upload/${productId}`, file, {
       headers: headers,
+      params: { filename: file.name },
       withCredentials: true,
     });
   }
@@ -31,6 +33,31 @@ export class MediaService {
     return this.http.get<Media[]>(`${this.apiUrl}/product/${productId}`);
   }
 
+  // Media of many products in as few requests as the batch limit allows
+  getMediaByProducts(productIds: string[]): Observable<Record<string, Media[]>> {
+    return this.batched<Media[]>(productIds, 'products');
+  }
+
+  // The first image of each product that has one, for grids that show a single picture
+  getPrimaryMediaByProducts(productIds: string[]): Observable<Record<string, Media>> {
+    return this.batched<Media>(productIds, 'products/primary');
+  }
+
+  private batched<T>(productIds: string[], path: string): Observable<Record<string, T>> {
+    const ids = [...new Set(productIds)];
+    if (ids.length === 0) {
+      return of({});
+    }
+    const requests: Observable<Record<string, T>>[] = [];
+    for (let i = 0; i < ids.length; i += MediaService.MAX_BATCH_PRODUCTS) {
+      const batch = ids.slice(i, i + MediaService.MAX_BATCH_PRODUCTS);
+      requests.push(
+        this.http.get<Record<string, T>>(`${this.apiUrl}/${path}`, { params: { ids: batch.join(',') } })
+      );
+    }
+    return forkJoin(requests).pipe(map((results) => Object.assign({}, ...results)));
+  }
+
   getMediaFile(mediaId: string): string {
     return `${this.apiUrl}/file/${mediaId}`;
   }
@@ -0,0 +1,41 @@
+#!/bin/bash
+# filepath: load-test.sh
+#
+# Compares throughput and latency of a service with and without virtual threads.
+# Start the service once normally and once with VIRTUAL_THREADS_ENABLED=true,
+# run this script against each and compare the two reports.
+#
+# Usage: ./load-test.sh [url] [concurrency] [duration]
+# Requires hey (https://github.com/rakyll/hey) on the PATH.
+
+URL=${1:-http://localhost:8082/products}
+CONCURRENCY=${2:-200}
+DURATION=${3:-60s}
+
+GREEN='\033[0;32m'
+RED='\033[0;31m'
+NC='\033[0m'
+
+if ! command -v hey > /dev/null; then
+    echo -e "${RED}❌ hey not found. Install it with: go install github.com/rakyll/hey@latest${NC}"
+    exit 1
+fi
+
+if ! curl -s -o /dev/null "$URL"; then
+    echo -e "${RED}❌ $URL is not reachable${NC}"
+    exit 1
+fi
+
+# Warm up the JIT and connection pools before measuring
+echo "Warming up $URL..."
+hey -z 10s -c "$CONCURRENCY" "$URL" > /dev/null
+
+echo "Measuring $URL with $CONCURRENCY concurrent clients for $DURATION..."
+REPORT=$(hey -z "$DURATION" -c "$CONCURRENCY" "$URL")
+
+echo ""
+echo "$REPORT" | grep -E "Requests/sec|Average|Slowest"
+echo "$REPORT" | grep -E "(50|99)% in"
+echo "$REPORT" | sed -n '/Status code distribution/,$p'
+echo ""
+echo -e "${GREEN}✅ Done${NC}"